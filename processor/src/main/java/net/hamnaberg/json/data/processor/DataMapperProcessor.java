@@ -0,0 +1,394 @@
+/*
+ * Copyright 2012 Erlend Hamnaberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.hamnaberg.json.data.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Generates mappers for classes annotated with {@link net.hamnaberg.json.data.DataMapper}.
+ * <p>
+ * The generated code reads and writes each property by its name, known at compile time,
+ * without reflection. Records are recognised by their element kind, so the processor also runs on Java 8.
+ */
+public final class DataMapperProcessor extends AbstractProcessor {
+    private static final String ANNOTATION = "net.hamnaberg.json.data.DataMapper";
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Collections.singleton(ANNOTATION);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                try {
+                    generate(model((TypeElement) element));
+                } catch (MappingException e) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, e.getMessage(), e.element);
+                } catch (IOException e) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Unable to write mapper: " + e.getMessage(), element);
+                }
+            }
+        }
+        return true;
+    }
+
+    private Model model(TypeElement type) {
+        if (type.getKind() != ElementKind.CLASS && !isRecord(type)) {
+            throw new MappingException("Only classes and records can be mapped", type);
+        }
+        if (type.getModifiers().contains(Modifier.PRIVATE) || type.getModifiers().contains(Modifier.ABSTRACT)) {
+            throw new MappingException("Mapped classes may not be private or abstract", type);
+        }
+        if (type.getNestingKind().isNested() && !type.getModifiers().contains(Modifier.STATIC) && !isRecord(type)) {
+            throw new MappingException("Nested mapped classes must be static", type);
+        }
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        StringBuilder name = new StringBuilder(type.getSimpleName());
+        for (Element enclosing = type.getEnclosingElement(); enclosing instanceof TypeElement; enclosing = enclosing.getEnclosingElement()) {
+            name.insert(0, enclosing.getSimpleName() + "_");
+        }
+        Model model = new Model(type, packageName, name.append("DataMapper").toString());
+        return isRecord(type) ? recordModel(model) : classModel(model);
+    }
+
+    private Model recordModel(Model model) {
+        for (Element member : model.type.getEnclosedElements()) {
+            if (member.getKind().name().equals("RECORD_COMPONENT")) {
+                String name = member.getSimpleName().toString();
+                model.properties.add(new PropertyModel(name, member.asType(), name + "()", null, member));
+            }
+        }
+        model.constructor = true;
+        return model;
+    }
+
+    private Model classModel(Model model) {
+        checkSuperclasses(model.type);
+        List<ExecutableElement> methods = ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(model.type));
+        for (VariableElement field : ElementFilter.fieldsIn(model.type.getEnclosedElements())) {
+            if (field.getModifiers().contains(Modifier.STATIC) || field.getModifiers().contains(Modifier.TRANSIENT)) {
+                continue;
+            }
+            String name = field.getSimpleName().toString();
+            String capitalized = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+            boolean accessible = !field.getModifiers().contains(Modifier.PRIVATE);
+            String getter = findMethod(methods, field.asType(), 0, "get" + capitalized, "is" + capitalized);
+            if (getter == null && !accessible) {
+                throw new MappingException("No getter for private field " + name, field);
+            }
+            String setter = findMethod(methods, field.asType(), 1, "set" + capitalized);
+            if (setter == null && accessible && !field.getModifiers().contains(Modifier.FINAL)) {
+                setter = name + " = ";
+            }
+            else if (setter != null) {
+                setter = setter + "(";
+            }
+            model.properties.add(new PropertyModel(name, field.asType(), getter != null ? getter + "()" : name, setter, field));
+        }
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(model.type.getEnclosedElements())) {
+            if (constructor.getModifiers().contains(Modifier.PRIVATE)) {
+                continue;
+            }
+            List<? extends VariableElement> parameters = constructor.getParameters();
+            if (parameters.size() == model.properties.size() && matches(parameters, model.properties)) {
+                model.constructor = true;
+                return model;
+            }
+            if (parameters.isEmpty()) {
+                model.noArgs = true;
+            }
+        }
+        if (!model.noArgs) {
+            throw new MappingException("No constructor taking the fields in order, and no constructor without arguments", model.type);
+        }
+        for (PropertyModel property : model.properties) {
+            if (property.setter == null) {
+                throw new MappingException("No setter for field " + property.name, property.element);
+            }
+        }
+        return model;
+    }
+
+    /**
+     * Fields of superclasses are not mapped, so classes which would silently lose them are rejected.
+     */
+    private void checkSuperclasses(TypeElement type) {
+        for (TypeMirror superclass = type.getSuperclass(); superclass.getKind() == TypeKind.DECLARED; ) {
+            TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+            for (VariableElement field : ElementFilter.fieldsIn(element.getEnclosedElements())) {
+                if (!field.getModifiers().contains(Modifier.STATIC) && !field.getModifiers().contains(Modifier.TRANSIENT)) {
+                    throw new MappingException("Fields of superclasses are not mapped, but " + element.getQualifiedName()
+                            + " declares " + field.getSimpleName(), type);
+                }
+            }
+            superclass = element.getSuperclass();
+        }
+    }
+
+    private boolean matches(List<? extends VariableElement> parameters, List<PropertyModel> properties) {
+        for (int i = 0; i < parameters.size(); i++) {
+            if (!processingEnv.getTypeUtils().isSameType(parameters.get(i).asType(), properties.get(i).type)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String findMethod(List<ExecutableElement> methods, TypeMirror type, int parameters, String... names) {
+        for (ExecutableElement method : methods) {
+            if (method.getModifiers().contains(Modifier.PRIVATE) || method.getModifiers().contains(Modifier.STATIC)
+                    || method.getParameters().size() != parameters) {
+                continue;
+            }
+            for (String name : names) {
+                if (!method.getSimpleName().contentEquals(name)) {
+                    continue;
+                }
+                TypeMirror actual = parameters == 0 ? method.getReturnType() : method.getParameters().get(0).asType();
+                if (processingEnv.getTypeUtils().isSameType(actual, type)) {
+                    return name;
+                }
+            }
+        }
+        return null;
+    }
+
+    private void generate(Model model) throws IOException {
+        String typeName = model.type.getQualifiedName().toString();
+        StringBuilder out = new StringBuilder();
+        if (!model.packageName.isEmpty()) {
+            out.append("package ").append(model.packageName).append(";\n\n");
+        }
+        out.append("/**\n * Generated by ").append(getClass().getName()).append(" from {@link ").append(typeName).append("}.\n */\n");
+        out.append("public final class ").append(model.name).append(" implements net.hamnaberg.json.data.ToData<").append(typeName)
+                .append(">, net.hamnaberg.json.data.FromData<").append(typeName).append("> {\n");
+        out.append("    public static final ").append(model.name).append(" INSTANCE = new ").append(model.name).append("();\n\n");
+
+        out.append("    @Override\n    public net.hamnaberg.json.Data apply(").append(typeName).append(" from) {\n");
+        out.append("        net.hamnaberg.json.Property[] properties = new net.hamnaberg.json.Property[").append(model.properties.size()).append("];\n");
+        for (int i = 0; i < model.properties.size(); i++) {
+            PropertyModel property = model.properties.get(i);
+            out.append("        {\n");
+            out.append("            ").append(property.type).append(" value = from.").append(property.getter).append(";\n");
+            out.append("            properties[").append(i).append("] = ").append(write(property)).append(";\n");
+            out.append("        }\n");
+        }
+        out.append("        return new net.hamnaberg.json.Data(java.util.Arrays.asList(properties));\n    }\n\n");
+
+        out.append("    @Override\n    public ").append(typeName).append(" apply(net.hamnaberg.json.Data data) {\n");
+        for (int i = 0; i < model.properties.size(); i++) {
+            PropertyModel property = model.properties.get(i);
+            out.append("        ").append(property.type).append(" p").append(i).append(" = ").append(read(property)).append(";\n");
+        }
+        if (model.constructor) {
+            out.append("        return new ").append(typeName).append("(");
+            for (int i = 0; i < model.properties.size(); i++) {
+                out.append(i == 0 ? "" : ", ").append("p").append(i);
+            }
+            out.append(");\n");
+        }
+        else {
+            out.append("        ").append(typeName).append(" value = new ").append(typeName).append("();\n");
+            for (int i = 0; i < model.properties.size(); i++) {
+                String setter = model.properties.get(i).setter;
+                out.append("        value.").append(setter).append("p").append(i).append(setter.endsWith("(") ? ");\n" : ";\n");
+            }
+            out.append("        return value;\n");
+        }
+        out.append("    }\n}\n");
+
+        String file = model.packageName.isEmpty() ? model.name : model.packageName + "." + model.name;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(file, model.type).openWriter()) {
+            writer.write(out.toString());
+        }
+    }
+
+    private String write(PropertyModel property) {
+        String name = quote(property.name);
+        TypeMirror type = property.type;
+        if (type.getKind().isPrimitive()) {
+            checkPrimitive(property);
+            return "net.hamnaberg.json.Property.value(" + name + ", net.hamnaberg.json.Value.of(value))";
+        }
+        String value;
+        switch (kind(property)) {
+            case "java.lang.String":
+            case "java.math.BigDecimal":
+            case "java.lang.Boolean":
+                value = "net.hamnaberg.json.Value.of(value)";
+                break;
+            case "java.lang.Integer":
+                value = "net.hamnaberg.json.Value.of(value.intValue())";
+                break;
+            case "java.lang.Long":
+                value = "net.hamnaberg.json.Value.of(value.longValue())";
+                break;
+            case "java.lang.Double":
+                value = "net.hamnaberg.json.Value.of(value.doubleValue())";
+                break;
+            case "enum":
+                value = "net.hamnaberg.json.Value.of(value.name())";
+                break;
+            case "list":
+                return "value == null ? net.hamnaberg.json.Property.template(" + name + ") : net.hamnaberg.json.Property.array(" + name
+                        + ", value.stream().map(v -> v == null ? net.hamnaberg.json.Value.NULL : net.hamnaberg.json.Value.of(v))"
+                        + ".collect(java.util.stream.Collectors.toList()))";
+            default:
+                throw new MappingException("Unsupported type " + type + " for " + property.name, property.element);
+        }
+        return "value == null ? net.hamnaberg.json.Property.template(" + name + ") : net.hamnaberg.json.Property.value(" + name + ", " + value + ")";
+    }
+
+    private String read(PropertyModel property) {
+        String name = quote(property.name);
+        TypeMirror type = property.type;
+        if (type.getKind().isPrimitive()) {
+            switch (checkPrimitive(property)) {
+                case INT:
+                    return "data.getInt(" + name + ", 0)";
+                case LONG:
+                    return "data.getLong(" + name + ", 0L)";
+                case DOUBLE:
+                    return "data.getDouble(" + name + ", 0.0)";
+                default:
+                    return "data.getBoolean(" + name + ", false)";
+            }
+        }
+        switch (kind(property)) {
+            case "java.lang.String":
+                return "data.getString(" + name + ", null)";
+            case "java.math.BigDecimal":
+                return "net.hamnaberg.json.data.DataMappers.getBigDecimal(data, " + name + ")";
+            case "java.lang.Boolean":
+                return "net.hamnaberg.json.data.DataMappers.getBoolean(data, " + name + ")";
+            case "java.lang.Integer":
+                return "net.hamnaberg.json.data.DataMappers.getInteger(data, " + name + ")";
+            case "java.lang.Long":
+                return "net.hamnaberg.json.data.DataMappers.getLong(data, " + name + ")";
+            case "java.lang.Double":
+                return "net.hamnaberg.json.data.DataMappers.getDouble(data, " + name + ")";
+            case "enum":
+                return "data.getString(" + name + ", null) == null ? null : " + type + ".valueOf(data.getString(" + name + ", null))";
+            case "list":
+                return "net.hamnaberg.json.data.DataMappers.getStrings(data, " + name + ")";
+            default:
+                throw new MappingException("Unsupported type " + type + " for " + property.name, property.element);
+        }
+    }
+
+    private static TypeKind checkPrimitive(PropertyModel property) {
+        TypeKind kind = property.type.getKind();
+        if (kind != TypeKind.INT && kind != TypeKind.LONG && kind != TypeKind.DOUBLE && kind != TypeKind.BOOLEAN) {
+            throw new MappingException("Unsupported type " + property.type + " for " + property.name, property.element);
+        }
+        return kind;
+    }
+
+    private String kind(PropertyModel property) {
+        if (property.type.getKind() != TypeKind.DECLARED) {
+            return "";
+        }
+        DeclaredType declared = (DeclaredType) property.type;
+        TypeElement element = (TypeElement) declared.asElement();
+        if (element.getKind() == ElementKind.ENUM) {
+            return "enum";
+        }
+        String name = element.getQualifiedName().toString();
+        if (name.equals("java.util.List")) {
+            List<? extends TypeMirror> arguments = declared.getTypeArguments();
+            if (arguments.size() == 1 && arguments.get(0).toString().equals("java.lang.String")) {
+                return "list";
+            }
+            return "";
+        }
+        return name;
+    }
+
+    private static String quote(String name) {
+        return "\"" + name + "\"";
+    }
+
+    private static boolean isRecord(TypeElement type) {
+        return type.getKind().name().equals("RECORD");
+    }
+
+    private static final class Model {
+        private final TypeElement type;
+        private final String packageName;
+        private final String name;
+        private final List<PropertyModel> properties = new ArrayList<>();
+        private boolean constructor;
+        private boolean noArgs;
+
+        private Model(TypeElement type, String packageName, String name) {
+            this.type = type;
+            this.packageName = packageName;
+            this.name = name;
+        }
+    }
+
+    private static final class PropertyModel {
+        private final String name;
+        private final TypeMirror type;
+        private final String getter;
+        private final String setter;
+        private final Element element;
+
+        private PropertyModel(String name, TypeMirror type, String getter, String setter, Element element) {
+            this.name = name;
+            this.type = type;
+            this.getter = getter;
+            this.setter = setter;
+            this.element = element;
+        }
+    }
+
+    private static final class MappingException extends RuntimeException {
+        private final Element element;
+
+        private MappingException(String message, Element element) {
+            super(message);
+            this.element = element;
+        }
+    }
+}
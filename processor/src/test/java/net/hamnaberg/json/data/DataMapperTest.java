@@ -0,0 +1,263 @@
+/*
+ * Copyright 2012 Erlend Hamnaberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.hamnaberg.json.data;
+
+import net.hamnaberg.json.Data;
+import net.hamnaberg.json.Property;
+import net.hamnaberg.json.Value;
+import net.hamnaberg.json.data.processor.DataMapperProcessor;
+import org.junit.Assume;
+import org.junit.Test;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DataMapperTest {
+    @Test
+    public void mapsImmutableClassThroughConstructor() throws Exception {
+        Person person = new Person("Erlend", 42, 1.5, true, null, new BigDecimal("1.50"), Kind.ADMIN, Arrays.asList("a", "b"));
+        Data data = DataMapperTest_PersonDataMapper.INSTANCE.apply(person);
+        assertEquals(Property.value("name", Value.of("Erlend")), data.propertyByName("name").get());
+        assertEquals(42L, data.getLong("age", 0));
+        assertEquals(Property.template("score"), data.propertyByName("score").get());
+        assertEquals("ADMIN", data.getString("kind", null));
+
+        Person read = DataMapperTest_PersonDataMapper.INSTANCE.apply(data);
+        assertEquals(person, read);
+
+        Person scored = new Person("Erlend", 42, 1.5, true, 1L << 40, new BigDecimal("1.50"), Kind.ADMIN, Arrays.asList("a", "b"));
+        Data scoredData = DataMapperTest_PersonDataMapper.INSTANCE.apply(scored);
+        assertEquals(1L << 40, scoredData.getLong("score", 0));
+        assertEquals(scored, DataMapperTest_PersonDataMapper.INSTANCE.apply(scoredData));
+        assertNotEquals(person, scored);
+    }
+
+    @Test
+    public void rejectsNumbersWhichDoNotFit() throws Exception {
+        Data data = DataMapperTest_PersonDataMapper.INSTANCE.apply(new Person("Erlend", 42, 1.5, true, null, null, null, null));
+        BigDecimal beyondLong = new BigDecimal("18446744073709551617");
+        for (Value age : Arrays.asList(Value.of(1L << 40), Value.of(beyondLong), Value.of(new BigDecimal("1.5")))) {
+            Data replaced = data.replace(Property.value("age", age));
+            assertThrows(ArithmeticException.class, () -> DataMapperTest_PersonDataMapper.INSTANCE.apply(replaced));
+            assertThrows(ArithmeticException.class, () -> DataMappers.getInteger(replaced, "age"));
+        }
+        Data score = data.replace(Property.value("score", Value.of(beyondLong)));
+        assertThrows(ArithmeticException.class, () -> DataMapperTest_PersonDataMapper.INSTANCE.apply(score));
+    }
+
+    private static void assertThrows(Class<? extends Throwable> expected, Runnable runnable) {
+        try {
+            runnable.run();
+        } catch (Throwable e) {
+            assertTrue("Expected " + expected.getName() + " but got " + e, expected.isInstance(e));
+            return;
+        }
+        throw new AssertionError("Expected " + expected.getName());
+    }
+
+    @Test
+    public void rejectsClassesWithSuperclassFields() throws Exception {
+        Compilation compilation = compile("test.Child",
+                "package test;\n"
+                        + "class Parent { String name; }\n"
+                        + "@net.hamnaberg.json.data.DataMapper\n"
+                        + "public class Child extends Parent { public String nick; }\n");
+        assertFalse(compilation.success);
+        assertTrue(compilation.errors, compilation.errors.contains("Fields of superclasses are not mapped, but test.Parent declares name"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void mapsRecordThroughCanonicalConstructor() throws Exception {
+        String version = System.getProperty("java.specification.version");
+        Assume.assumeTrue("Records need Java 16", !version.startsWith("1.") && Integer.parseInt(version) >= 16);
+        Compilation compilation = compile("test.Point",
+                "package test;\n"
+                        + "@net.hamnaberg.json.data.DataMapper\n"
+                        + "public record Point(String name, int x, Long y) {}\n");
+        assertTrue(compilation.errors, compilation.success);
+
+        Class<?> type = compilation.loader.loadClass("test.Point");
+        Object mapper = compilation.loader.loadClass("test.PointDataMapper").getField("INSTANCE").get(null);
+        Object point = type.getConstructor(String.class, int.class, Long.class).newInstance("origin", 3, 1L << 40);
+        Data data = ((ToData<Object>) mapper).apply(point);
+        assertEquals("origin", data.getString("name", null));
+        assertEquals(3L, data.getLong("x", 0));
+        assertEquals(1L << 40, data.getLong("y", 0));
+        assertEquals(point, ((FromData<Object>) mapper).apply(data));
+    }
+
+    /**
+     * Compiles a single source file with the processor, and loads the result on top of the test classpath.
+     */
+    private static Compilation compile(String className, String source) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        Assume.assumeNotNull(compiler);
+        Path output = Files.createTempDirectory("data-mapper");
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///" + className.replace('.', '/') + ".java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        List<String> options = Arrays.asList("-classpath", System.getProperty("java.class.path"), "-d", output.toString());
+        JavaCompiler.CompilationTask task = compiler.getTask(null, null, diagnostics, options, null, Collections.singletonList(file));
+        task.setProcessors(Collections.singletonList(new DataMapperProcessor()));
+        boolean success = task.call();
+        StringBuilder errors = new StringBuilder();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                errors.append(diagnostic.getMessage(null)).append('\n');
+            }
+        }
+        ClassLoader loader = new URLClassLoader(new URL[]{output.toUri().toURL()}, DataMapperTest.class.getClassLoader());
+        return new Compilation(success, errors.toString(), loader);
+    }
+
+    private static final class Compilation {
+        private final boolean success;
+        private final String errors;
+        private final ClassLoader loader;
+
+        private Compilation(boolean success, String errors, ClassLoader loader) {
+            this.success = success;
+            this.errors = errors;
+            this.loader = loader;
+        }
+    }
+
+    @Test
+    public void mapsMutableClassThroughSetters() throws Exception {
+        Settings settings = new Settings();
+        settings.setTitle("title");
+        settings.limit = 10L;
+        Data data = DataMapperTest_SettingsDataMapper.INSTANCE.apply(settings);
+        Settings read = DataMapperTest_SettingsDataMapper.INSTANCE.apply(data);
+        assertEquals("title", read.getTitle());
+        assertEquals(Long.valueOf(10), read.limit);
+        assertNull(DataMapperTest_SettingsDataMapper.INSTANCE.apply(new Data(Arrays.asList(Property.template("limit")))).limit);
+    }
+
+    enum Kind {
+        USER, ADMIN
+    }
+
+    @DataMapper
+    static final class Person {
+        private final String name;
+        private final int age;
+        private final double ratio;
+        private final boolean active;
+        private final Long score;
+        private final BigDecimal balance;
+        private final Kind kind;
+        private final List<String> tags;
+
+        Person(String name, int age, double ratio, boolean active, Long score, BigDecimal balance, Kind kind, List<String> tags) {
+            this.name = name;
+            this.age = age;
+            this.ratio = ratio;
+            this.active = active;
+            this.score = score;
+            this.balance = balance;
+            this.kind = kind;
+            this.tags = tags;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        public double getRatio() {
+            return ratio;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public Long getScore() {
+            return score;
+        }
+
+        public BigDecimal getBalance() {
+            return balance;
+        }
+
+        public Kind getKind() {
+            return kind;
+        }
+
+        public List<String> getTags() {
+            return tags;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Person)) return false;
+            Person other = (Person) o;
+            return Objects.equals(name, other.name) && age == other.age && ratio == other.ratio && active == other.active
+                    && Objects.equals(score, other.score) && Objects.equals(balance, other.balance) && kind == other.kind
+                    && Objects.equals(tags, other.tags);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, age, ratio, active, score, balance, kind, tags);
+        }
+    }
+
+    @DataMapper
+    static class Settings {
+        private String title;
+        Long limit;
+
+        public String getTitle() {
+            return title;
+        }
+
+        public void setTitle(String title) {
+            this.title = title;
+        }
+    }
+}
@@ -17,20 +17,23 @@
 package net.hamnaberg.json;
 
 import net.hamnaberg.json.extension.Extended;
+import net.hamnaberg.json.generator.Utf8JsonWriter;
+import net.hamnaberg.json.util.URICache;
 
 import java.io.IOException;
 import java.io.OutputStream;
-import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.net.URI;
-import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import javaslang.Lazy;
 import javaslang.control.Option;
 import net.hamnaberg.json.io.JsonSerializer;
 
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
@@ -38,14 +41,36 @@ import java.util.stream.StreamSupport;
 import static javaslang.control.Option.of;
 
 public final class Collection extends Extended<Collection> implements Writable {
+    private final boolean validateOnAccess;
+    private final Lazy<Option<URI>> href = Lazy.of(() -> delegate.getAsString("href").map(URICache::create));
+    private final Lazy<List<Link>> links = Lazy.of(() ->
+            decode(Link.fromArray(delegate.getAsArrayOrEmpty("links")), Link::validate));
+    private final Lazy<List<Item>> items = Lazy.of(() ->
+            decode(Item.fromArray(delegate.getAsArrayOrEmpty("items")), Item::validate));
+    private final Lazy<List<Query>> queries = Lazy.of(() ->
+            decode(Query.fromArray(delegate.getAsArrayOrEmpty("queries")), Query::validate));
+    private final Lazy<Option<Template>> template = Lazy.of(() ->
+            decode(delegate.getAsObject("template").map(Template::new), Template::validate));
+    private final Lazy<Option<Error>> error = Lazy.of(() ->
+            decode(delegate.getAsObject("error").map(Error::new), Error::validate));
+    private final Lazy<RelIndex<Link>> linkIndex = Lazy.of(() -> RelIndex.of(getLinks(), Link::getRel, Link::getName));
+    private final Lazy<RelIndex<Query>> queryIndex = Lazy.of(() -> RelIndex.of(getQueries(), Query::getRel, Query::getName));
 
     Collection(Json.JObject value) {
+        this(value, false);
+    }
+
+    /**
+     * @param validateOnAccess if true, each section is validated the first time it is accessed.
+     */
+    Collection(Json.JObject value, boolean validateOnAccess) {
         super(value);
+        this.validateOnAccess = validateOnAccess;
     }
 
     @Override
     protected Collection copy(Json.JObject value) {
-        return new Collection(value);
+        return new Collection(value, validateOnAccess);
     }
 
     public static Collection create(URI href, List<Link> links, List<Item> items, List<Query> queries, Template template, Error error) {
@@ -88,20 +113,32 @@ public final class Collection extends Extended<Collection> implements Writable {
         return Version.ONE;
     }
 
+    /**
+     * The href is parsed once, and the same URI is returned by every call.
+     */
     public Option<URI> getHref() {
-        return delegate.getAsString("href").map(URI::create);
+        return href.get();
     }
 
+    /**
+     * The links are decoded once, and the same unmodifiable list is returned by every call.
+     */
     public List<Link> getLinks() {
-        return Link.fromArray(delegate.getAsArrayOrEmpty("links"));
+        return links.get();
     }
 
+    /**
+     * The items are decoded once, and the same unmodifiable list is returned by every call.
+     */
     public List<Item> getItems() {
-        return Item.fromArray(delegate.getAsArrayOrEmpty("items"));
+        return items.get();
     }
 
+    /**
+     * The queries are decoded once, and the same unmodifiable list is returned by every call.
+     */
     public List<Query> getQueries() {
-        return Query.fromArray(delegate.getAsArrayOrEmpty("queries"));
+        return queries.get();
     }
 
     public boolean hasTemplate() {
@@ -109,7 +146,7 @@ public final class Collection extends Extended<Collection> implements Writable {
     }
 
     public Option<Template> getTemplate() {
-        return delegate.getAsObject("template").map(Template::new);
+        return template.get();
     }
 
     public boolean hasError() {
@@ -117,35 +154,50 @@ public final class Collection extends Extended<Collection> implements Writable {
     }
 
     public Option<Error> getError() {
-        return delegate.getAsObject("error").map(Error::new);
+        return error.get();
     }
 
     public Option<Link> linkByName(final String name) {
-        return findLink(link -> of(name).equals(link.getName()));
+        return linkIndex.get().byName(name);
     }
 
+    /**
+     * Finds the first link with the given name, and a rel which is or contains the given rel.
+     */
     public Option<Link> linkByRelAndName(final String rel, final String name) {
-        return findLink(link -> rel.equals(link.getRel()) && of(name).equals(link.getName()));
+        return linkIndex.get().byRelAndName(rel, name);
     }
 
+    /**
+     * Finds the first link with a rel which is or contains the given rel, as one of its space-separated values.
+     */
     public Option<Link> linkByRel(final String rel) {
-        return findLink(link -> rel.equals(link.getRel()));
+        return linkIndex.get().firstByRel(rel);
     }
 
+    /**
+     * Finds all links with a rel which is or contains the given rel, as one of its space-separated values.
+     */
     public List<Link> linksByRel(final String rel) {
-        return filterLinks(link -> rel.equals(link.getRel()));
+        return linkIndex.get().byRel(rel);
     }
 
+    /**
+     * Finds the first query with a rel which is or contains the given rel, as one of its space-separated values.
+     */
     public Option<Query> queryByRel(final String rel) {
-        return findQuery(query -> rel.equals(query.getRel()));
+        return queryIndex.get().firstByRel(rel);
     }
 
     public Option<Query> queryByName(final String name) {
-        return findQuery(query -> of(name).equals(query.getName()));
+        return queryIndex.get().byName(name);
     }
 
+    /**
+     * Finds the first query with the given name, and a rel which is or contains the given rel.
+     */
     public Option<Query> queryByRelAndName(final String rel, final String name) {
-        return findQuery(query -> rel.equals(query.getRel()) && of(name).equals(query.getName()));
+        return queryIndex.get().byRelAndName(rel, name);
     }
 
     public Option<Link> findLink(Predicate<Link> predicate) {
@@ -190,8 +242,12 @@ public final class Collection extends Extended<Collection> implements Writable {
         return builder;
     }
 
+    /**
+     * Writes UTF-8 encoded bytes directly to the stream.
+     * Note: Does NOT close the stream.
+     */
     public void writeTo(OutputStream stream) throws IOException {
-        writeTo(new OutputStreamWriter(stream, Charset.forName("UTF-8")));
+        Utf8JsonWriter.write("collection", asJson(), stream);
     }
 
     public void writeTo(Writer writer) throws IOException {
@@ -206,12 +262,61 @@ public final class Collection extends Extended<Collection> implements Writable {
         return Json.jObject("collection", asJson()).nospaces();
     }
 
+    /**
+     * Validates all sections in a single pass over the underlying json.
+     */
     public void validate() {
-        getLinks().forEach(Link::validate);
-        getItems().forEach(Item::validate);
-        getQueries().forEach(Query::validate);
-        getTemplate().forEach(Template::validate);
-        getError().forEach(Error::validate);
+        delegate.forEach((String name, Json.JValue value) -> validate(name, value));
+    }
+
+    private <A> List<A> decode(List<A> list, Consumer<A> validation) {
+        if (validateOnAccess) {
+            list.forEach(validation);
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    private <A> Option<A> decode(Option<A> value, Consumer<A> validation) {
+        if (validateOnAccess) {
+            value.forEach(validation);
+        }
+        return value;
+    }
+
+    private static void validate(String name, Json.JValue value) {
+        switch (name) {
+            case "links":
+                forEachObject(value, node -> new Link(node).validate());
+                break;
+            case "items":
+                forEachObject(value, node -> new Item(node).validate());
+                break;
+            case "queries":
+                forEachObject(value, node -> new Query(node).validate());
+                break;
+            case "template":
+                if (value instanceof Json.JObject) {
+                    new Template((Json.JObject) value).validate();
+                }
+                break;
+            case "error":
+                if (value instanceof Json.JObject) {
+                    new Error((Json.JObject) value).validate();
+                }
+                break;
+            default:
+                break;
+        }
+    }
+
+    private static void forEachObject(Json.JValue array, Consumer<Json.JObject> f) {
+        if (array instanceof Json.JArray) {
+            for (Json.JValue value : (Json.JArray) array) {
+                if (value instanceof Json.JObject) {
+                    f.accept((Json.JObject) value);
+                }
+            }
+        }
     }
 
     public static Builder builder(URI href) {
@@ -1,11 +1,13 @@
 package net.hamnaberg.json;
 
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import javaslang.Lazy;
 import javaslang.control.Option;
-import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -15,19 +17,28 @@ import net.hamnaberg.json.util.Iterables;
 
 public final class Data implements Iterable<Property> {
 
+    private static final String[] EMPTY_STRINGS = new String[0];
+
     private final List<Property> properties;
+    private final Lazy<Map<String, Property>> byName = Lazy.of(() -> getDataAsMap(this));
 
+    /**
+     * Maps the properties by name, in order. If several properties have the same name, the first one is used.
+     *
+     * @return an unmodifiable map
+     */
     public static Map<String, Property> getDataAsMap(Iterable<Property> properties) {
-        return Collections.unmodifiableMap(
-                StreamSupport.stream(properties.spliterator(), false).
-                        collect(Collectors.toMap(Property::getName, Function.<Property>identity()))
-        );
+        Map<String, Property> map = new LinkedHashMap<>();
+        for (Property property : properties) {
+            map.putIfAbsent(property.getName(), property);
+        }
+        return Collections.unmodifiableMap(map);
     }
 
 
     public Data(Iterable<Property> props) {
         properties = Option.of(props)
-                             .map(x -> StreamSupport.stream(x.spliterator(), false).collect(Collectors.toList()))
+                             .map(x -> Collections.unmodifiableList(StreamSupport.stream(x.spliterator(), false).collect(Collectors.<Property>toList())))
                              .getOrElseThrow(() -> new IllegalArgumentException("Properties in Data may not be null"));
     }
 
@@ -35,8 +46,13 @@ public final class Data implements Iterable<Property> {
         return properties.isEmpty();
     }
 
+    /**
+     * The map is built once, and the same map is returned by every call.
+     *
+     * @see #getDataAsMap(Iterable)
+     */
     public Map<String, Property> getDataAsMap() {
-        return getDataAsMap(properties);
+        return byName.get();
     }
 
     public Option<Property> findProperty(Predicate<Property> predicate) {
@@ -44,18 +60,96 @@ public final class Data implements Iterable<Property> {
     }
 
     public Option<Property> propertyByName(final String name) {
-        return findProperty(input -> name.equals(input.getName()));
+        return Option.of(byName.get().get(name));
     }
 
     public Option<Property> get(int index) {
-        int count = 0;
-        for (Property property : properties) {
-            if (index == count) {
-                return Option.of(property);
+        if (index < 0 || index >= properties.size()) {
+            return Option.none();
+        }
+        return Option.of(properties.get(index));
+    }
+
+    /**
+     * The value of the named property as a long, read straight from the json, with any fractional part discarded.
+     *
+     * @return the value, or the default if there is no such property or its value is not a number
+     */
+    public long getLong(String name, long defaultValue) {
+        Json.JValue value = valueNode(name);
+        return value instanceof Json.JNumber ? ((Json.JNumber) value).value.longValue() : defaultValue;
+    }
+
+    /**
+     * The value of the named property as an int, read straight from the json.
+     *
+     * @return the value, or the default if there is no such property or its value is not a number
+     * @throws ArithmeticException if the number has a fractional part or does not fit in an int
+     */
+    public int getInt(String name, int defaultValue) {
+        Json.JValue value = valueNode(name);
+        return value instanceof Json.JNumber ? ((Json.JNumber) value).value.intValueExact() : defaultValue;
+    }
+
+    /**
+     * The value of the named property as a double, read straight from the json.
+     *
+     * @return the value, or the default if there is no such property or its value is not a number
+     */
+    public double getDouble(String name, double defaultValue) {
+        Json.JValue value = valueNode(name);
+        return value instanceof Json.JNumber ? ((Json.JNumber) value).value.doubleValue() : defaultValue;
+    }
+
+    /**
+     * The value of the named property as a boolean, read straight from the json.
+     *
+     * @return the value, or the default if there is no such property or its value is not a boolean
+     */
+    public boolean getBoolean(String name, boolean defaultValue) {
+        Json.JValue value = valueNode(name);
+        return value instanceof Json.JBoolean ? ((Json.JBoolean) value).value : defaultValue;
+    }
+
+    /**
+     * The value of the named property as a string, read straight from the json.
+     *
+     * @return the value, or the default if there is no such property or its value is not a string
+     */
+    public String getString(String name, String defaultValue) {
+        Json.JValue value = valueNode(name);
+        return value instanceof Json.JString ? ((Json.JString) value).value : defaultValue;
+    }
+
+    /**
+     * The strings in the array of the named property, read straight from the json.
+     * Values which are not strings are left out, as by {@link net.hamnaberg.json.util.PropertyFunctions#propertyToArrayStringF}.
+     *
+     * @return the values, or an empty array if there is no such property or it has no array
+     */
+    public String[] getStringArray(String name) {
+        Property property = byName.get().get(name);
+        Json.JArray array = property == null ? null : property.arrayNode();
+        if (array == null || array.value.isEmpty()) {
+            return EMPTY_STRINGS;
+        }
+        String[] strings = new String[array.value.length()];
+        int i = 0;
+        for (Json.JValue value : array.value) {
+            if (value instanceof Json.JString) {
+                strings[i++] = ((Json.JString) value).value;
             }
-            count++;
         }
-        return Option.none();
+        return i == strings.length ? strings : Arrays.copyOf(strings, i);
+    }
+
+    private Json.JValue valueNode(String name) {
+        Property property = byName.get().get(name);
+        return property == null ? null : property.valueNode();
+    }
+
+    public int size() {
+        return properties.size();
     }
 
     /**
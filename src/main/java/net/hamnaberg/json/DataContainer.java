@@ -1,5 +1,6 @@
 package net.hamnaberg.json;
 
+import javaslang.Lazy;
 import javaslang.control.Option;
 import net.hamnaberg.json.extension.Extended;
 import net.hamnaberg.json.util.Iterables;
@@ -8,12 +9,17 @@ import java.util.*;
 import java.util.function.Predicate;
 
 public abstract class DataContainer<A extends DataContainer> extends Extended<A> {
+    private final Lazy<Data> data = Lazy.of(() -> new Data(Property.fromData(delegate.getAsArrayOrEmpty("data"))));
+
     protected DataContainer(Json.JObject delegate) {
         super(delegate);
     }
 
+    /**
+     * The data is decoded once, and the same instance is returned by every call.
+     */
     public Data getData() {
-        return new Data(Property.fromData(delegate.getAsArrayOrEmpty("data")));
+        return data.get();
     }
 
     public Map<String, Property> getDataAsMap() {
@@ -28,6 +34,41 @@ public abstract class DataContainer<A extends DataContainer> extends Extended<A>
         return getData().propertyByName(name);
     }
 
+    /**
+     * @see Data#getLong(String, long)
+     */
+    public long getLong(String name, long defaultValue) {
+        return getData().getLong(name, defaultValue);
+    }
+
+    /**
+     * @see Data#getDouble(String, double)
+     */
+    public double getDouble(String name, double defaultValue) {
+        return getData().getDouble(name, defaultValue);
+    }
+
+    /**
+     * @see Data#getBoolean(String, boolean)
+     */
+    public boolean getBoolean(String name, boolean defaultValue) {
+        return getData().getBoolean(name, defaultValue);
+    }
+
+    /**
+     * @see Data#getString(String, String)
+     */
+    public String getString(String name, String defaultValue) {
+        return getData().getString(name, defaultValue);
+    }
+
+    /**
+     * @see Data#getStringArray(String)
+     */
+    public String[] getStringArray(String name) {
+        return getData().getStringArray(name);
+    }
+
     /**
      * Replaces all properties with the same name as the supplied property
      * @param property property to replace with
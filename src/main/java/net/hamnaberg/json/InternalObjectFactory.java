@@ -6,10 +6,21 @@ public abstract class InternalObjectFactory {
         return new Collection(node);
     }
 
+    /**
+     * Creates a collection which validates each of its sections the first time it is accessed.
+     */
+    public Collection createLazilyValidatedCollection(Json.JObject node) {
+        return new Collection(node, true);
+    }
+
     public Error createError(Json.JObject node) {
         return new Error(node);
     }
 
+    public Item createItem(Json.JObject node) {
+        return new Item(node);
+    }
+
     public Link createLink(Json.JObject node) {
         return new Link(node);
     }
@@ -16,9 +16,11 @@
 
 package net.hamnaberg.json;
 
+import javaslang.Lazy;
 import javaslang.control.Option;
 import net.hamnaberg.json.extension.Extended;
 import net.hamnaberg.json.util.Iterables;
+import net.hamnaberg.json.util.URICache;
 
 import java.net.URI;
 import java.util.*;
@@ -30,6 +32,9 @@ import java.util.stream.StreamSupport;
 import static javaslang.control.Option.of;
 
 public final class Item extends DataContainer<Item> {
+    private final Lazy<Option<URI>> href = Lazy.of(() -> delegate.getAsString("href").map(URICache::create));
+    private final Lazy<List<Link>> links = Lazy.of(() -> Collections.unmodifiableList(Link.fromArray(delegate.getAsArrayOrEmpty("links"))));
+    private final Lazy<RelIndex<Link>> linkIndex = Lazy.of(() -> RelIndex.of(getLinks(), Link::getRel, Link::getName));
 
     Item(Json.JObject node) {
         super(node);
@@ -72,12 +77,18 @@ public final class Item extends DataContainer<Item> {
         return create(Option.none());
     }
 
+    /**
+     * The href is parsed once, and the same URI is returned by every call.
+     */
     public Option<URI> getHref() {
-        return delegate.getAsString("href").map(URI::create);
+        return href.get();
     }
 
+    /**
+     * The links are decoded once, and the same unmodifiable list is returned by every call.
+     */
     public List<Link> getLinks() {
-        return Link.fromArray(delegate.getAsArrayOrEmpty("links"));
+        return links.get();
     }
 
     public Template toTemplate() {
@@ -107,16 +118,22 @@ public final class Item extends DataContainer<Item> {
 
     }
 
+    /**
+     * Finds the first link with a rel which is or contains the given rel, as one of its space-separated values.
+     */
     public Option<Link> linkByRel(final String rel) {
-        return findLink(input -> rel.equals(input.getRel()));
+        return linkIndex.get().firstByRel(rel);
     }
 
     public Option<Link> linkByName(final String name) {
-        return findLink(input -> of(name).equals(input.getName()));
+        return linkIndex.get().byName(name);
     }
 
+    /**
+     * Finds the first link with the given name, and a rel which is or contains the given rel.
+     */
     public Option<Link> linkByRelAndName(final String rel, final String name) {
-        return findLink(input -> rel.equals(input.getRel()) && of(name).equals(input.getName()));
+        return linkIndex.get().byRelAndName(rel, name);
     }
 
     public Option<Link> findLink(Predicate<Link> predicate) {
@@ -16,13 +16,17 @@
 
 package net.hamnaberg.json;
 
+import javaslang.Lazy;
 import javaslang.control.Option;
 import net.hamnaberg.json.extension.Extended;
+import net.hamnaberg.json.util.URICache;
 
 import java.net.URI;
 import java.util.*;
 
 public final class Link extends Extended<Link> {
+    private final Lazy<URI> href = Lazy.of(() -> delegate.getAsString("href").map(URICache::create).getOrElse((URI) null));
+
     Link(Json.JObject delegate) {
         super(delegate);
     }
@@ -57,8 +61,11 @@ public final class Link extends Extended<Link> {
         return new Link(node.concat(Json.jObject(obj)));
     }
 
+    /**
+     * The href is parsed once, and the same URI is returned by every call.
+     */
     public URI getHref() {
-        return delegate.getAsString("href").map(URI::create).getOrElse((URI)null);
+        return href.get();
     }
 
     public Link withHref(URI href) {
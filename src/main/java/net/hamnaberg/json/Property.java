@@ -48,6 +48,21 @@ public final class Property extends Extended<Property> {
         return FromJsonValue.createOptionValue(delegate.get("value").getOrElse(Json.jNull()));
     }
 
+    /**
+     * The undecoded value, or null if there is none.
+     */
+    Json.JValue valueNode() {
+        return delegate.getOrDefault("value", null);
+    }
+
+    /**
+     * The undecoded array, or null if there is none.
+     */
+    Json.JArray arrayNode() {
+        Json.JValue array = delegate.getOrDefault("array", null);
+        return array instanceof Json.JArray ? (Json.JArray) array : null;
+    }
+
     public Option<String> getPrompt() {
         return delegate.getAsString("prompt");
     }
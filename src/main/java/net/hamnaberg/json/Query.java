@@ -19,13 +19,17 @@ package net.hamnaberg.json;
 import java.net.URI;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
+import javaslang.Lazy;
 import javaslang.control.Option;
 import net.hamnaberg.json.extension.Extended;
 import net.hamnaberg.json.util.Iterables;
+import net.hamnaberg.json.util.URICache;
 
 public final class Query extends DataContainer<Query> {
+    private final Lazy<Target> target = Lazy.of(this::parseTarget);
 
     Query(Json.JObject delegate) {
         super(delegate);
@@ -65,12 +69,19 @@ public final class Query extends DataContainer<Query> {
         return new Query(value);
     }
 
+    /**
+     * The target is parsed once, and the same target is returned by every call.
+     */
     public Target getHref() {
+        return target.get();
+    }
+
+    private Target parseTarget() {
         String href = delegate.getAsString("href").getOrElse((String)null);
         if (delegate.containsKey("encoding") && "uri-template".equals(delegate.getAsString("encoding").getOrElse((String)null))) {
             return new URITemplateTarget(href);
         }
-        return new URITarget(href);
+        return new URITarget(URICache.create(href));
     }
 
     public URI expand(Iterable<Property> properties) {
@@ -81,6 +92,20 @@ public final class Query extends DataContainer<Query> {
         return expand(getData());
     }
 
+    /**
+     * Gives an expander bound to this query, for expanding it against many sets of properties.
+     */
+    public QueryExpander expander() {
+        return new QueryExpander(this);
+    }
+
+    /**
+     * @see QueryExpander#expandAll(Stream)
+     */
+    public Stream<URI> expandAll(Stream<? extends Iterable<Property>> properties) {
+        return expander().expandAll(properties);
+    }
+
     public String getRel() {
         return getAsString("rel");
     }
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2012 Erlend Hamnaberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.hamnaberg.json;
+
+import java.net.URI;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Expands one query against many sets of properties.
+ * <p>
+ * The target of the query is resolved once. {@link #expandAll(Stream)} gives each split of the stream its own buffer,
+ * and for uri templates its own template, so expanding from a parallel stream does not contend on shared state.
+ */
+public final class QueryExpander {
+    private final Target target;
+    private final Data data;
+
+    QueryExpander(Query query) {
+        this.target = query.getHref();
+        this.data = query.getData();
+    }
+
+    public Target getTarget() {
+        return target;
+    }
+
+    /**
+     * Expands with the data of the query.
+     */
+    public URI expand() {
+        return expand(data);
+    }
+
+    public URI expand(Iterable<Property> properties) {
+        return target.expand(properties);
+    }
+
+    /**
+     * Expands lazily, in the order of the given stream. The expansion runs in parallel if the stream is parallel.
+     */
+    public Stream<URI> expandAll(Stream<? extends Iterable<Property>> properties) {
+        return StreamSupport.stream(new ExpandingSpliterator(properties.spliterator()), properties.isParallel())
+                .onClose(properties::close);
+    }
+
+    private Function<Iterable<Property>, URI> newExpander() {
+        if (target instanceof URITemplateTarget) {
+            return ((URITemplateTarget) target).newExpander();
+        }
+        if (target instanceof URITarget) {
+            return ((URITarget) target).newExpander();
+        }
+        return target::expand;
+    }
+
+    private final class ExpandingSpliterator implements Spliterator<URI> {
+        private final Spliterator<? extends Iterable<Property>> source;
+        private Function<Iterable<Property>, URI> expander;
+
+        ExpandingSpliterator(Spliterator<? extends Iterable<Property>> source) {
+            this.source = source;
+        }
+
+        private Function<Iterable<Property>, URI> expander() {
+            if (expander == null) {
+                expander = newExpander();
+            }
+            return expander;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super URI> action) {
+            return source.tryAdvance(properties -> action.accept(expander().apply(properties)));
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super URI> action) {
+            Function<Iterable<Property>, URI> expander = expander();
+            source.forEachRemaining(properties -> action.accept(expander.apply(properties)));
+        }
+
+        @Override
+        public Spliterator<URI> trySplit() {
+            Spliterator<? extends Iterable<Property>> split = source.trySplit();
+            return split == null ? null : new ExpandingSpliterator(split);
+        }
+
+        @Override
+        public long estimateSize() {
+            return source.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return (source.characteristics() & (ORDERED | SIZED | SUBSIZED | IMMUTABLE | CONCURRENT)) | NONNULL;
+        }
+    }
+}
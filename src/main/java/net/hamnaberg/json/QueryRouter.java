@@ -0,0 +1,464 @@
+/*
+ * Copyright 2012 Erlend Hamnaberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.hamnaberg.json;
+
+import javaslang.control.Option;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the query an incoming URI was expanded from, and the properties it was expanded with.
+ * <p>
+ * The part of each query href before the query string is compiled into a prefix trie,
+ * so a URI is matched against all queries in one pass over it, rather than one query at a time.
+ * Variables match the longest input which lets the rest of the URI match, and each variable is tried
+ * at most once for each position in the URI, so a URI which matches no query is rejected in polynomial time.
+ * The query string is then matched against the queries which ended at that point in the trie.
+ * <p>
+ * Uri templates may use simple <code>{var}</code>, reserved <code>{+var}</code>, label <code>{.var}</code>
+ * and path segment <code>{/var}</code> expressions with a single variable before the query string,
+ * and form-style <code>{?var,...}</code> and <code>{&amp;var,...}</code> expressions for the query string.
+ * Plain hrefs take their query variables from the data of the query.
+ * Query parameters which are not variables of the query are ignored.
+ * <p>
+ * The URI to route should be absolute in the same way as the query hrefs. Immutable and thread-safe.
+ */
+public final class QueryRouter {
+    private final Node root;
+
+    private QueryRouter(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * @throws IllegalArgumentException if a query uses a uri template this router does not support
+     */
+    public static QueryRouter of(Iterable<Query> queries) {
+        Node root = new Node();
+        for (Query query : queries) {
+            Route route = query.getHref().isURITemplate() ? templateRoute(query) : plainRoute(query);
+            Node node = root;
+            for (Object token : route.path) {
+                if (token instanceof String) {
+                    String literal = (String) token;
+                    for (int i = 0; i < literal.length(); i++) {
+                        node = node.literals.computeIfAbsent(literal.charAt(i), ignore -> new Node());
+                    }
+                }
+                else if (token == Kind.RESERVED) {
+                    node = node.reserved == null ? (node.reserved = new Node()) : node.reserved;
+                }
+                else {
+                    node = node.simple == null ? (node.simple = new Node()) : node.simple;
+                }
+            }
+            node.routes.add(route);
+        }
+        return new QueryRouter(root);
+    }
+
+    public Option<Match> route(URI uri) {
+        String str = uri.toString();
+        int end = str.length();
+        int fragment = str.indexOf('#');
+        if (fragment >= 0) {
+            end = fragment;
+        }
+        int question = str.indexOf('?');
+        String query = null;
+        if (question >= 0 && question < end) {
+            query = str.substring(question + 1, end);
+            end = question;
+        }
+        return Option.of(new Matcher(str, end, parseQuery(query)).match(root, 0));
+    }
+
+    private static boolean isUnreserved(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || c == '-' || c == '.' || c == '_' || c == '~' || c == '%';
+    }
+
+    private static Route plainRoute(Query query) {
+        URI href = query.getHref().toURI();
+        String str = href.toString();
+        int question = str.indexOf('?');
+        List<Object> path = Collections.singletonList(question > 0 ? str.substring(0, question) : str);
+        List<String> variables = new ArrayList<>();
+        for (Property property : query.getData()) {
+            variables.add(property.getName());
+        }
+        return new Route(query, path, Collections.emptyList(), parseQuery(href.getRawQuery()), variables, true);
+    }
+
+    private static Route templateRoute(Query query) {
+        String template = query.getHref().toString();
+        List<Object> path = new ArrayList<>();
+        List<String> pathVariables = new ArrayList<>();
+        StringBuilder fixedQuery = new StringBuilder();
+        List<String> queryVariables = new ArrayList<>();
+        boolean inQuery = false;
+        int index = 0;
+        while (index < template.length()) {
+            int open = template.indexOf('{', index);
+            String literal = template.substring(index, open < 0 ? template.length() : open);
+            if (!inQuery && literal.indexOf('?') >= 0) {
+                int question = literal.indexOf('?');
+                appendLiteral(path, literal.substring(0, question));
+                fixedQuery.append(literal.substring(question + 1));
+                inQuery = true;
+            }
+            else if (inQuery) {
+                fixedQuery.append(literal);
+            }
+            else {
+                appendLiteral(path, literal);
+            }
+            if (open < 0) {
+                break;
+            }
+            int close = template.indexOf('}', open);
+            if (close < 0) {
+                throw unsupported(template);
+            }
+            String expression = template.substring(open + 1, close);
+            char operator = expression.isEmpty() ? 0 : expression.charAt(0);
+            if (operator == '?' || operator == '&') {
+                inQuery = true;
+                for (String variable : expression.substring(1).split(",")) {
+                    queryVariables.add(variableName(variable, template));
+                }
+            }
+            else if (inQuery || expression.indexOf(',') >= 0) {
+                throw unsupported(template);
+            }
+            else if (operator == '+') {
+                path.add(Kind.RESERVED);
+                pathVariables.add(variableName(expression.substring(1), template));
+            }
+            else if (operator == '/' || operator == '.') {
+                appendLiteral(path, String.valueOf(operator));
+                path.add(Kind.SIMPLE);
+                pathVariables.add(variableName(expression.substring(1), template));
+            }
+            else if (operator == ';' || operator == '#' || operator == '=' || operator == ',' || operator == '!' || operator == '@' || operator == '|') {
+                throw unsupported(template);
+            }
+            else {
+                path.add(Kind.SIMPLE);
+                pathVariables.add(variableName(expression, template));
+            }
+            index = close + 1;
+        }
+        return new Route(query, path, pathVariables, parseQuery(fixedQuery.length() == 0 ? null : fixedQuery.toString()), queryVariables, false);
+    }
+
+    private static void appendLiteral(List<Object> path, String literal) {
+        if (literal.isEmpty()) {
+            return;
+        }
+        int last = path.size() - 1;
+        if (last >= 0 && path.get(last) instanceof String) {
+            path.set(last, path.get(last) + literal);
+        }
+        else {
+            path.add(literal);
+        }
+    }
+
+    private static String variableName(String variable, String template) {
+        if (variable.endsWith("*")) {
+            throw unsupported(template);
+        }
+        int prefix = variable.indexOf(':');
+        return prefix < 0 ? variable : variable.substring(0, prefix);
+    }
+
+    private static IllegalArgumentException unsupported(String template) {
+        return new IllegalArgumentException("Uri template is not supported by the router: " + template);
+    }
+
+    private static Map<String, List<String>> parseQuery(String query) {
+        if (query == null || query.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, List<String>> parameters = new LinkedHashMap<>();
+        for (String pair : query.split("&")) {
+            if (pair.isEmpty()) {
+                continue;
+            }
+            int equals = pair.indexOf('=');
+            String name = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            parameters.computeIfAbsent(name, ignore -> new ArrayList<>()).add(value);
+        }
+        return parameters;
+    }
+
+    /**
+     * Decodes percent-encoded UTF-8, and plus signs as spaces if asked to. Malformed input is given as it is.
+     */
+    static String decode(String value, boolean plusAsSpace) {
+        if (value.indexOf('%') < 0 && (!plusAsSpace || value.indexOf('+') < 0)) {
+            return value;
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '%') {
+                if (i + 2 >= value.length()) {
+                    return value;
+                }
+                int hi = Character.digit(value.charAt(i + 1), 16);
+                int lo = Character.digit(value.charAt(i + 2), 16);
+                if (hi < 0 || lo < 0) {
+                    return value;
+                }
+                bytes.write((hi << 4) | lo);
+                i += 2;
+            }
+            else if (c == '+' && plusAsSpace) {
+                bytes.write(' ');
+            }
+            else if (c < 128) {
+                bytes.write(c);
+            }
+            else {
+                byte[] encoded = String.valueOf(c).getBytes(StandardCharsets.UTF_8);
+                bytes.write(encoded, 0, encoded.length);
+            }
+        }
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A query matched by the router, with the properties it was expanded with.
+     */
+    public static final class Match {
+        private final Query query;
+        private final List<Property> properties;
+
+        private Match(Query query, List<Property> properties) {
+            this.query = query;
+            this.properties = properties;
+        }
+
+        public Query getQuery() {
+            return query;
+        }
+
+        /**
+         * The variables of the query found in the URI, in the order of the query.
+         * Variables given more than once are arrays, the others are string values.
+         *
+         * @return an unmodifiable list
+         */
+        public List<Property> getProperties() {
+            return properties;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Match with query %s, properties %s", query, properties);
+        }
+    }
+
+    /**
+     * The state of routing one URI.
+     */
+    private static final class Matcher {
+        private final String str;
+        private final int end;
+        private final Map<String, List<String>> parameters;
+        private final Map<Node, BitSet> failed = new IdentityHashMap<>();
+        private int[] starts = new int[8];
+        private int[] ends = new int[8];
+        private int depth;
+
+        private Matcher(String str, int end, Map<String, List<String>> parameters) {
+            this.str = str;
+            this.end = end;
+            this.parameters = parameters;
+        }
+
+        /**
+         * Follows the literal characters from the given node as far as they go, then tries the variables
+         * of the nodes on the way, from the deepest one back to the given node.
+         */
+        private Match match(Node start, int from) {
+            BitSet known = failed.get(start);
+            if (known != null && known.get(from)) {
+                return null;
+            }
+            List<Node> path = new ArrayList<>();
+            Node node = start;
+            int index = from;
+            path.add(node);
+            while (index < end) {
+                Node next = node.literals.get(str.charAt(index));
+                if (next == null) {
+                    break;
+                }
+                node = next;
+                index++;
+                path.add(node);
+            }
+            if (index == end) {
+                for (Route route : node.routes) {
+                    if (route.accepts(parameters)) {
+                        return route.match(captured(), parameters);
+                    }
+                }
+            }
+            for (int i = path.size() - 1; i >= 0; i--) {
+                Match match = matchVariables(path.get(i), from + i);
+                if (match != null) {
+                    return match;
+                }
+            }
+            failed(start).set(from);
+            return null;
+        }
+
+        /**
+         * The positions from which the rest of the URI is known not to match from the given node.
+         */
+        private BitSet failed(Node node) {
+            return failed.computeIfAbsent(node, ignore -> new BitSet(end + 1));
+        }
+
+        private Match matchVariables(Node node, int index) {
+            if (node.simple != null) {
+                int max = index;
+                while (max < end && isUnreserved(str.charAt(max))) {
+                    max++;
+                }
+                Match match = matchVariable(node.simple, index, max);
+                if (match != null) {
+                    return match;
+                }
+            }
+            if (node.reserved != null) {
+                return matchVariable(node.reserved, index, end);
+            }
+            return null;
+        }
+
+        private Match matchVariable(Node node, int index, int max) {
+            if (depth == starts.length) {
+                starts = Arrays.copyOf(starts, depth * 2);
+                ends = Arrays.copyOf(ends, depth * 2);
+            }
+            starts[depth] = index;
+            depth++;
+            BitSet known = failed(node);
+            try {
+                for (int i = known.previousClearBit(max); i > index; i = known.previousClearBit(i - 1)) {
+                    ends[depth - 1] = i;
+                    Match match = match(node, i);
+                    if (match != null) {
+                        return match;
+                    }
+                }
+                return null;
+            } finally {
+                depth--;
+            }
+        }
+
+        private List<String> captured() {
+            List<String> captured = new ArrayList<>(depth);
+            for (int i = 0; i < depth; i++) {
+                captured.add(str.substring(starts[i], ends[i]));
+            }
+            return captured;
+        }
+    }
+
+    private enum Kind {
+        SIMPLE, RESERVED
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> literals = new HashMap<>();
+        private final List<Route> routes = new ArrayList<>();
+        private Node simple;
+        private Node reserved;
+    }
+
+    private static final class Route {
+        private final Query query;
+        private final List<Object> path;
+        private final List<String> pathVariables;
+        private final Map<String, List<String>> fixedQuery;
+        private final List<String> queryVariables;
+        private final boolean plusAsSpace;
+
+        private Route(Query query, List<Object> path, List<String> pathVariables, Map<String, List<String>> fixedQuery, List<String> queryVariables, boolean plusAsSpace) {
+            this.query = query;
+            this.path = path;
+            this.pathVariables = pathVariables;
+            this.fixedQuery = fixedQuery;
+            this.queryVariables = queryVariables;
+            this.plusAsSpace = plusAsSpace;
+        }
+
+        private boolean accepts(Map<String, List<String>> parameters) {
+            for (Map.Entry<String, List<String>> entry : fixedQuery.entrySet()) {
+                List<String> values = parameters.get(entry.getKey());
+                if (values == null || !values.containsAll(entry.getValue())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private Match match(List<String> captured, Map<String, List<String>> parameters) {
+            List<Property> properties = new ArrayList<>();
+            for (int i = 0; i < pathVariables.size(); i++) {
+                properties.add(Property.value(pathVariables.get(i), Value.of(decode(captured.get(i), false))));
+            }
+            for (String name : queryVariables) {
+                List<String> values = parameters.get(name);
+                if (values == null) {
+                    continue;
+                }
+                if (values.size() == 1) {
+                    properties.add(Property.value(name, Value.of(decode(values.get(0), plusAsSpace))));
+                }
+                else {
+                    List<Value> decoded = new ArrayList<>();
+                    for (String value : values) {
+                        decoded.add(Value.of(decode(value, plusAsSpace)));
+                    }
+                    properties.add(Property.array(name, decoded));
+                }
+            }
+            return new Match(query, Collections.unmodifiableList(properties));
+        }
+    }
+}
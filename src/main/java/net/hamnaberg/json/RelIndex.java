@@ -0,0 +1,93 @@
+/*
+ * Copyright 2012 Erlend Hamnaberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.hamnaberg.json;
+
+import javaslang.control.Option;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Immutable lookup of links or queries by rel and name.
+ * <p>
+ * Values are indexed by their full rel, and once by each distinct space-separated token of it.
+ * Lookups give values in document order, and the first one where only one is wanted.
+ * Values without a name are found by looking up a null name.
+ */
+final class RelIndex<A> {
+    private final Map<String, List<A>> byRel = new HashMap<>();
+    private final Map<String, A> byName = new HashMap<>();
+    private final Map<String, Map<String, A>> byRelAndName = new HashMap<>();
+
+    private RelIndex() {
+    }
+
+    static <A> RelIndex<A> of(List<A> values, Function<A, String> rel, Function<A, Option<String>> name) {
+        RelIndex<A> index = new RelIndex<>();
+        for (A value : values) {
+            String n = name.apply(value).getOrElse((String) null);
+            index.byName.putIfAbsent(n, value);
+            String r = rel.apply(value);
+            if (r == null) {
+                continue;
+            }
+            Set<String> rels = new LinkedHashSet<>();
+            rels.add(r);
+            for (String token : r.split("\\s")) {
+                if (!token.isEmpty()) {
+                    rels.add(token);
+                }
+            }
+            for (String each : rels) {
+                index.add(each, n, value);
+            }
+        }
+        for (Map.Entry<String, List<A>> entry : index.byRel.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        return index;
+    }
+
+    private void add(String rel, String name, A value) {
+        byRel.computeIfAbsent(rel, ignore -> new ArrayList<>()).add(value);
+        byRelAndName.computeIfAbsent(rel, ignore -> new HashMap<>()).putIfAbsent(name, value);
+    }
+
+    List<A> byRel(String rel) {
+        return byRel.getOrDefault(rel, Collections.<A>emptyList());
+    }
+
+    Option<A> firstByRel(String rel) {
+        List<A> values = byRel(rel);
+        return values.isEmpty() ? Option.none() : Option.some(values.get(0));
+    }
+
+    Option<A> byName(String name) {
+        return Option.of(byName.get(name));
+    }
+
+    Option<A> byRelAndName(String rel, String name) {
+        Map<String, A> names = byRelAndName.get(rel);
+        return names == null ? Option.none() : Option.of(names.get(name));
+    }
+}
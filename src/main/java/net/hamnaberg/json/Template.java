@@ -16,8 +16,8 @@
 
 package net.hamnaberg.json;
 
+import net.hamnaberg.json.generator.Utf8JsonWriter;
 import net.hamnaberg.json.io.JsonSerializer;
-import net.hamnaberg.json.util.Charsets;
 
 import java.io.*;
 import java.net.URI;
@@ -47,11 +47,11 @@ public final class Template extends DataContainer<Template> implements Writable
     }
 
     /*
-     * Writes to the supplied outputstream.
+     * Writes UTF-8 encoded bytes directly to the supplied outputstream.
      * Note: Does NOT close the stream.
      */
     public void writeTo(OutputStream stream) throws IOException {
-        writeTo(new OutputStreamWriter(stream, Charsets.UTF_8));
+        Utf8JsonWriter.write("template", asJson(), stream);
     }
 
     /*
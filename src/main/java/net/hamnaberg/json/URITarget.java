@@ -1,26 +1,57 @@
 package net.hamnaberg.json;
 
 
-import javaslang.control.Option;
-
 import net.hamnaberg.json.util.Iterables;
 import net.hamnaberg.json.util.StringUtils;
 
-import java.io.UnsupportedEncodingException;
 import java.net.URI;
-import java.net.URLEncoder;
-import java.nio.charset.UnsupportedCharsetException;
-import java.util.List;
+import java.util.function.Function;
 
 public final class URITarget implements Target {
-    private URI href;
+    private static final boolean[] UNRESERVED = new boolean[128];
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+    private static final int MAX_BUFFER = 1024;
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            UNRESERVED[c] = true;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            UNRESERVED[c] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            UNRESERVED[c] = true;
+        }
+        UNRESERVED['.'] = true;
+        UNRESERVED['-'] = true;
+        UNRESERVED['*'] = true;
+        UNRESERVED['_'] = true;
+    }
+
+    private final URI href;
+    private final String base;
+    private final String query;
 
     public URITarget(String href) {
         this(URI.create(href));
     }
 
+    /**
+     * The part of the href before the query, and the query itself, are worked out once here,
+     * so expanding only appends the properties.
+     */
     public URITarget(URI href) {
         this.href = href;
+        if (href != null) {
+            String str = href.toString();
+            int queryPart = str.indexOf('?');
+            this.base = queryPart > 0 ? str.substring(0, queryPart) : str;
+            this.query = StringUtils.isNotBlank(href.getQuery()) ? href.getQuery() : null;
+        }
+        else {
+            this.base = null;
+            this.query = null;
+        }
     }
 
     @Override
@@ -33,65 +64,121 @@ public final class URITarget implements Target {
     }
 
     public URI expand(Iterable<Property> properties) {
+        return expand(properties, new StringBuilder());
+    }
+
+    /**
+     * Gives an expander which reuses the same buffer, for use from one thread at a time.
+     * The buffer is released again if an expansion has grown it beyond {@value #MAX_BUFFER} characters.
+     */
+    Function<Iterable<Property>, URI> newExpander() {
+        StringBuilder buffer = new StringBuilder();
+        return properties -> expand(properties, buffer);
+    }
+
+    private URI expand(Iterable<Property> properties, StringBuilder sb) {
         if (Iterables.isEmpty(properties)) {
             return href;
         }
-        final String query = href.getQuery();
-        StringBuilder fromProperties = buildQuery(properties);
-        if (StringUtils.isNotBlank(query)) {
-            String actual = query;
-            if (fromProperties.length() > 0) {
-                actual = query + "&";
-            }
-            fromProperties.insert(0, actual);
+        sb.setLength(0);
+        if (sb.capacity() > MAX_BUFFER) {
+            sb.trimToSize();
         }
-        String str = href.toString();
-        int queryPart = str.indexOf('?');
-        if (queryPart > 0) {
-            str = str.substring(0, queryPart);
+        sb.append(base);
+        int start = sb.length();
+        if (query != null) {
+            sb.append('?').append(query);
         }
-        String createdQuery = fromProperties.length() == 0 ? "" : ( "?" + fromProperties.toString());
-        return URI.create(str + createdQuery);
-    }
-
-    private StringBuilder buildQuery(Iterable<Property> properties) {
-        StringBuilder sb = new StringBuilder();
         for (Property property : properties) {
             if (property.hasObject()) {
                 throw new IllegalArgumentException("Expanding Cj Property object is undefined in the spec.");
             }
-            else {
-                if (property.hasArray()) {
-                    List<Value> prop = property.getArray();
-                    for (Value value : prop) {
-                        if (sb.length() > 0) {
-                            sb.append("&");
-                        }
-                        sb.append(property.getName()).append("=").append(encode(value.asString()));
+            if (property.hasArray()) {
+                Json.JArray array = property.arrayNode();
+                if (array != null) {
+                    for (Json.JValue value : array.value) {
+                        appendParameter(sb, start, property.getName(), asString(value));
                     }
                 }
-                else {
-                    Option<Value> value = property.getValue();
-                    if (value.isDefined()) {
-                        if (sb.length() > 0) {
-                            sb.append("&");
-                        }
-                        sb.append(property.getName()).append("=").append(encode(value.get().asString()));
-                    }
+            }
+            else {
+                Json.JValue value = property.valueNode();
+                if (value != null && !value.isNull()) {
+                    appendParameter(sb, start, property.getName(), asString(value));
                 }
             }
         }
-        return sb;
+        return URI.create(sb.toString());
     }
 
-    private String encode(String param) {
-        try {
-            return URLEncoder.encode(param, "UTF-8");
-        } catch (UnsupportedEncodingException e) {
-            throw new UnsupportedCharsetException("UTF-8");
+    private static void appendParameter(StringBuilder sb, int start, String name, String value) {
+        sb.append(sb.length() == start ? '?' : '&').append(name).append('=');
+        encode(sb, value);
+    }
+
+    /**
+     * The same as {@link Value#asString()} gives for the decoded value.
+     */
+    private static String asString(Json.JValue value) {
+        if (value instanceof Json.JString) {
+            return ((Json.JString) value).value;
+        }
+        if (value instanceof Json.JNumber) {
+            return ((Json.JNumber) value).value.toString();
+        }
+        if (value instanceof Json.JBoolean) {
+            return ((Json.JBoolean) value).value ? "true" : "false";
+        }
+        if (value.isNull()) {
+            return "null";
+        }
+        throw new IllegalArgumentException("Illegal value " + value);
+    }
+
+    /**
+     * Encodes as {@link java.net.URLEncoder#encode(String, String)} does with UTF-8.
+     */
+    static void encode(StringBuilder sb, String value) {
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 128 && UNRESERVED[c]) {
+                sb.append(c);
+            }
+            else if (c == ' ') {
+                sb.append('+');
+            }
+            else if (c < 128) {
+                appendByte(sb, c);
+            }
+            else if (c < 0x800) {
+                appendByte(sb, 0xC0 | (c >> 6));
+                appendByte(sb, 0x80 | (c & 0x3F));
+            }
+            else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                    appendByte(sb, 0xF0 | (codePoint >> 18));
+                    appendByte(sb, 0x80 | ((codePoint >> 12) & 0x3F));
+                    appendByte(sb, 0x80 | ((codePoint >> 6) & 0x3F));
+                    appendByte(sb, 0x80 | (codePoint & 0x3F));
+                }
+                else {
+                    appendByte(sb, '?');
+                }
+            }
+            else {
+                appendByte(sb, 0xE0 | (c >> 12));
+                appendByte(sb, 0x80 | ((c >> 6) & 0x3F));
+                appendByte(sb, 0x80 | (c & 0x3F));
+            }
         }
     }
 
+    private static void appendByte(StringBuilder sb, int b) {
+        sb.append('%').append(HEX[(b >> 4) & 0xF]).append(HEX[b & 0xF]);
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -3,6 +3,8 @@ package net.hamnaberg.json;
 import java.net.URI;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import javaslang.control.Option;
 import java.util.function.Function;
 import java.util.function.Predicate;
@@ -12,17 +14,47 @@ import com.damnhandy.uri.template.MalformedUriTemplateException;
 import com.damnhandy.uri.template.UriTemplate;
 
 public final class URITemplateTarget implements Target {
-    private String href;
+    private static final int CACHE_SIZE = 256;
+    private static final ConcurrentMap<String, UriTemplate> TEMPLATES = new ConcurrentHashMap<>();
+
+    private final String href;
+    private final UriTemplate template;
 
     public URITemplateTarget(String href) {
         try {
-            UriTemplate.fromTemplate(href);
+            this.template = parse(href);
             this.href = href;
         } catch (MalformedUriTemplateException e) {
             throw new IllegalStateException(e);
         }
     }
 
+    /**
+     * Templates are parsed once, and the parsed form is shared by all targets with the same template.
+     * Once the cache is full, new templates are parsed without being cached.
+     */
+    private static UriTemplate parse(String href) throws MalformedUriTemplateException {
+        UriTemplate template = TEMPLATES.get(href);
+        if (template == null) {
+            template = UriTemplate.fromTemplate(href);
+            if (TEMPLATES.size() < CACHE_SIZE) {
+                UriTemplate existing = TEMPLATES.putIfAbsent(href, template);
+                if (existing != null) {
+                    template = existing;
+                }
+            }
+        }
+        return template;
+    }
+
+    /**
+     * UriTemplate keeps the variables of the last expansion, so the shared template is never expanded.
+     * Each expansion gets a copy of its parsed components instead.
+     */
+    private UriTemplate copy() {
+        return UriTemplate.createBuilder().template(template).build();
+    }
+
     @Override
     public boolean isURITemplate() {
         return true;
@@ -30,13 +62,25 @@ public final class URITemplateTarget implements Target {
 
     public URI toURI() {
         try {
-            return URI.create(UriTemplate.fromTemplate(href).expand());
+            return URI.create(copy().expand());
         } catch (Exception e) {
             throw new IllegalStateException(e);
         }
     }
 
     public URI expand(Iterable<Property> properties) {
+        return expand(properties, copy());
+    }
+
+    /**
+     * Gives an expander with a template of its own, to be used from one thread at a time.
+     */
+    Function<Iterable<Property>, URI> newExpander() {
+        UriTemplate own = copy();
+        return properties -> expand(properties, own);
+    }
+
+    private URI expand(Iterable<Property> properties, UriTemplate own) {
         Map<String, Object> map = new HashMap<>();
         for (Property property : properties) {
             if (property.hasArray()) {
@@ -57,7 +101,7 @@ public final class URITemplateTarget implements Target {
         }
 
         try {
-            return URI.create(UriTemplate.fromTemplate(href).expand(map));
+            return URI.create(own.expand(map));
         } catch (Exception e) {
             throw new IllegalArgumentException(e);
         }
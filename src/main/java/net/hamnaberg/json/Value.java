@@ -42,7 +42,7 @@ public interface Value {
         return fold(
                 b -> b.name().toLowerCase(),
                 s -> s.value,
-                n -> n.value.toString(),
+                n -> n.toString(),
                 () -> "null"
         );
     }
@@ -57,16 +57,20 @@ public interface Value {
     }
 
     static Value of(BigDecimal bd) {
-        return new NumberValue(bd);
+        return NumberValue.valueOf(bd);
     }
     static Value of(int bd) {
-        return new NumberValue(new BigDecimal(bd));
+        return NumberValue.valueOf(bd);
     }
     static Value of(long bd) {
-        return new NumberValue(new BigDecimal(bd));
+        return NumberValue.valueOf(bd);
     }
 
     static Value of(double bd) {
+        long l = (long) bd;
+        if (l == bd && l != Long.MAX_VALUE && l != Long.MIN_VALUE) {
+            return NumberValue.valueOf(l);
+        }
         return new NumberValue(new BigDecimal(bd));
     }
 
@@ -113,10 +117,75 @@ public interface Value {
     }
 
     final class NumberValue implements Value {
+        private static final int CACHE_LOW = -128;
+        private static final int CACHE_HIGH = 1024;
+        private static final NumberValue[] CACHE = new NumberValue[CACHE_HIGH - CACHE_LOW + 1];
+
+        static {
+            for (int i = 0; i < CACHE.length; i++) {
+                CACHE[i] = new NumberValue(i + CACHE_LOW);
+            }
+        }
+
         public final BigDecimal value;
+        private final long longValue;
+        private final boolean exactLong;
 
         public NumberValue(BigDecimal value) {
             this.value = value;
+            this.exactLong = value != null && value.scale() == 0 && value.unscaledValue().bitLength() < 64;
+            this.longValue = exactLong ? value.longValue() : 0;
+        }
+
+        private NumberValue(long longValue) {
+            this.value = BigDecimal.valueOf(longValue);
+            this.longValue = longValue;
+            this.exactLong = true;
+        }
+
+        /**
+         * Values between -128 and 1024 are cached.
+         */
+        static NumberValue valueOf(long value) {
+            if (value >= CACHE_LOW && value <= CACHE_HIGH) {
+                return CACHE[(int) value - CACHE_LOW];
+            }
+            return new NumberValue(value);
+        }
+
+        /**
+         * Integers with a scale of zero between -128 and 1024 are cached.
+         */
+        static NumberValue valueOf(BigDecimal value) {
+            if (value != null && value.scale() == 0 && value.precision() <= 4) {
+                int i = value.intValue();
+                if (i >= CACHE_LOW && i <= CACHE_HIGH) {
+                    return CACHE[i - CACHE_LOW];
+                }
+            }
+            return new NumberValue(value);
+        }
+
+        public BigDecimal getValue() {
+            return value;
+        }
+
+        /**
+         * The value as a long, with any fractional part discarded, as by {@link BigDecimal#longValue()}.
+         */
+        public long asLong() {
+            return exactLong ? longValue : value.longValue();
+        }
+
+        /**
+         * The value as an int, with any fractional part discarded, as by {@link BigDecimal#intValue()}.
+         */
+        public int asInt() {
+            return exactLong ? (int) longValue : value.intValue();
+        }
+
+        public double asDouble() {
+            return exactLong ? (double) longValue : value.doubleValue();
         }
 
         @Override
@@ -124,9 +193,12 @@ public interface Value {
             return fNumber.apply(this);
         }
 
+        /**
+         * Integers with a scale of zero which fit in a long hash and compare as longs.
+         */
         @Override
         public int hashCode() {
-            return Objects.hashCode(value);
+            return exactLong ? Long.hashCode(longValue) : Objects.hashCode(value);
         }
 
         @Override
@@ -136,8 +208,16 @@ public interface Value {
 
             NumberValue that = (NumberValue) o;
 
+            if (exactLong || that.exactLong) {
+                return exactLong == that.exactLong && longValue == that.longValue;
+            }
             return Objects.equals(value, that.value);
         }
+
+        @Override
+        public String toString() {
+            return exactLong ? Long.toString(longValue) : String.valueOf(value);
+        }
     }
 
     enum NullValue implements Value {
@@ -0,0 +1,49 @@
+/*
+ * Copyright 2012 Erlend Hamnaberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.hamnaberg.json.data;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Generates a mapper implementing {@link ToData} and {@link FromData} for the annotated class or record,
+ * named after the class with {@code DataMapper} added, in the same package.
+ * Nested classes are named after the enclosing classes as well, as in {@code Outer_InnerDataMapper}.
+ * <p>
+ * Records are mapped by their components, and created with their canonical constructor.
+ * Other classes are mapped by their own fields, read by getter or directly if the field is not private.
+ * They are created with a constructor taking the fields in order if there is one,
+ * or with a no-argument constructor followed by setters or field assignments.
+ * Fields of superclasses are not mapped, so classes extending a class with instance fields are rejected.
+ * <p>
+ * Supported types are {@code String}, {@code int}, {@code long}, {@code double}, {@code boolean} and their boxes,
+ * {@code BigDecimal}, enums, which are mapped by name, and {@code List<String>}, which is mapped to an array.
+ * Null values are mapped to properties without a value, and back.
+ * Reading a number with a fractional part, or one which does not fit, into an {@code int}, {@code Integer} or {@code Long}
+ * field fails with an {@link ArithmeticException}.
+ * <p>
+ * Mappers are generated by {@code net.hamnaberg.json.data.processor.DataMapperProcessor}, which is published
+ * separately as {@code json-collection-processor}, to be put on the annotation processor path.
+ */
+@Documented
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface DataMapper {
+}
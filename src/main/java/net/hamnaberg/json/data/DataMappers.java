@@ -0,0 +1,83 @@
+/*
+ * Copyright 2012 Erlend Hamnaberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.hamnaberg.json.data;
+
+import net.hamnaberg.json.Data;
+import net.hamnaberg.json.Property;
+import net.hamnaberg.json.Value;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads values which may be missing, for generated mappers.
+ *
+ * @see DataMapper
+ */
+public final class DataMappers {
+    private DataMappers() {
+    }
+
+    /**
+     * @throws ArithmeticException if the value has a fractional part or does not fit in an int
+     */
+    public static Integer getInteger(Data data, String name) {
+        Value.NumberValue value = number(data, name);
+        return value == null ? null : value.value.intValueExact();
+    }
+
+    /**
+     * @throws ArithmeticException if the value has a fractional part or does not fit in a long
+     */
+    public static Long getLong(Data data, String name) {
+        Value.NumberValue value = number(data, name);
+        return value == null ? null : value.value.longValueExact();
+    }
+
+    public static Double getDouble(Data data, String name) {
+        Value.NumberValue value = number(data, name);
+        return value == null ? null : value.asDouble();
+    }
+
+    public static BigDecimal getBigDecimal(Data data, String name) {
+        Value.NumberValue value = number(data, name);
+        return value == null ? null : value.getValue();
+    }
+
+    public static Boolean getBoolean(Data data, String name) {
+        Value value = value(data, name);
+        return value instanceof Value.BooleanValue ? value == Value.BooleanValue.TRUE : null;
+    }
+
+    /**
+     * The strings of the array of the named property, or null if it has no array.
+     */
+    public static List<String> getStrings(Data data, String name) {
+        Property property = data.propertyByName(name).getOrElse((Property) null);
+        return property == null || !property.hasArray() ? null : Arrays.asList(data.getStringArray(name));
+    }
+
+    private static Value.NumberValue number(Data data, String name) {
+        Value value = value(data, name);
+        return value instanceof Value.NumberValue ? (Value.NumberValue) value : null;
+    }
+
+    private static Value value(Data data, String name) {
+        return data.propertyByName(name).flatMap(Property::getValue).getOrElse((Value) null);
+    }
+}
@@ -1,33 +1,74 @@
 package net.hamnaberg.json.data;
 
 import net.hamnaberg.json.Data;
+import net.hamnaberg.json.DataContainer;
 import net.hamnaberg.json.Json;
 import net.hamnaberg.json.Property;
-import net.hamnaberg.json.Value;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
+/**
+ * Converts data to a json object with a field per property.
+ * <p>
+ * Values, arrays and objects are taken straight from the json of each property, without decoding them.
+ * Properties without any of them give null. If several properties have the same name, the last one is used.
+ */
 public final class JsonObjectFromData implements FromData<Json.JObject> {
 
     @Override
     public Json.JObject apply(Data data) {
         Map<String, Json.JValue> map = new LinkedHashMap<>();
         for (Property property : data) {
-            Json.JValue value = property.fold(
-                    Value::asJson,
-                    v -> Json.jArray(
-                            v.stream().map(Value::asJson).collect(Collectors.toList())
-                    ),
-                    v -> Json.jObject(property.getObject()
-                            .entrySet()
-                            .stream()
-                            .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().asJson()))),
-                    Json::jNull
-            );
-            map.put(property.getName(), value);
+            put(map, property.asJson());
         }
         return Json.jObject(map);
     }
+
+    /**
+     * Converts the data of each container, read from its json without creating properties,
+     * using the same scratch map for every container.
+     */
+    public List<Json.JObject> applyAll(List<? extends DataContainer<?>> containers) {
+        List<Json.JObject> objects = new ArrayList<>(containers.size());
+        Map<String, Json.JValue> scratch = new LinkedHashMap<>();
+        for (DataContainer<?> container : containers) {
+            objects.add(fromDataArray(container.asJson().getAsArrayOrEmpty("data"), scratch));
+        }
+        return objects;
+    }
+
+    /**
+     * Converts a data array, as found in the json of an item, template or query.
+     */
+    public static Json.JObject fromDataArray(Json.JArray data) {
+        return fromDataArray(data, new LinkedHashMap<>());
+    }
+
+    private static Json.JObject fromDataArray(Json.JArray data, Map<String, Json.JValue> scratch) {
+        scratch.clear();
+        for (Json.JValue property : data.value) {
+            if (property instanceof Json.JObject) {
+                put(scratch, (Json.JObject) property);
+            }
+        }
+        return Json.jObject(scratch);
+    }
+
+    private static void put(Map<String, Json.JValue> map, Json.JObject property) {
+        Json.JValue name = property.getOrDefault("name", null);
+        if (!(name instanceof Json.JString)) {
+            return;
+        }
+        Json.JValue value = property.getOrDefault("value", null);
+        if (value == null) {
+            value = property.getOrDefault("array", null);
+        }
+        if (value == null) {
+            value = property.getOrDefault("object", null);
+        }
+        map.put(((Json.JString) name).value, value != null ? value : Json.jNull());
+    }
 }
@@ -5,29 +5,60 @@ import net.hamnaberg.json.InternalObjectFactory;
 import net.hamnaberg.json.Json;
 import net.hamnaberg.json.Property;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
 
 public class JsonObjectToData implements ToData<Json.JObject> {
     private InternalObjectFactory internalObjectFactory = new InternalObjectFactory() {};
 
     @Override
     public Data apply(Json.JObject from) {
-        List<Property> properties = from.stream().map(j -> {
-            Map<String, Json.JValue> map = new LinkedHashMap<>();
-            map.put("name", Json.jString(j._1));
-            j._2.foldUnit(
-                    js -> map.put("value", js),
-                    jb -> map.put("value", jb),
-                    jn -> map.put("value", jn),
-                    jo -> map.put("object", jo),
-                    ja -> map.put("array", ja),
-                    () -> map.put("value", Json.jNull())
-            );
-            return internalObjectFactory.createProperty(Json.jObject(map));
-        }).collect(Collectors.toList());
-        return new Data(properties);
+        return new Data(properties(from, new LinkedHashMap<>()));
+    }
+
+    /**
+     * Converts each object, using the same scratch map for building every property.
+     */
+    public List<Data> applyAll(List<Json.JObject> objects) {
+        List<Data> data = new ArrayList<>(objects.size());
+        Map<String, Json.JValue> scratch = new LinkedHashMap<>();
+        for (Json.JObject object : objects) {
+            data.add(new Data(properties(object, scratch)));
+        }
+        return data;
+    }
+
+    /**
+     * Converts the object to a data array, as found in the json of an item, template or query,
+     * without creating properties.
+     */
+    public static Json.JArray toDataArray(Json.JObject from) {
+        List<Json.JValue> properties = new ArrayList<>(from.size());
+        Map<String, Json.JValue> scratch = new LinkedHashMap<>();
+        from.forEach((String name, Json.JValue value) -> properties.add(property(name, value, scratch)));
+        return Json.jArray(properties);
+    }
+
+    private List<Property> properties(Json.JObject from, Map<String, Json.JValue> scratch) {
+        List<Property> properties = new ArrayList<>(from.size());
+        from.forEach((String name, Json.JValue value) -> properties.add(internalObjectFactory.createProperty(property(name, value, scratch))));
+        return properties;
+    }
+
+    private static Json.JObject property(String name, Json.JValue value, Map<String, Json.JValue> scratch) {
+        scratch.clear();
+        scratch.put("name", Json.jString(name));
+        if (value instanceof Json.JObject) {
+            scratch.put("object", value);
+        }
+        else if (value instanceof Json.JArray) {
+            scratch.put("array", value);
+        }
+        else {
+            scratch.put("value", value);
+        }
+        return Json.jObject(scratch);
     }
 }
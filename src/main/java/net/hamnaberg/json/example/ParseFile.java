@@ -4,7 +4,6 @@ import net.hamnaberg.json.Collection;
 import net.hamnaberg.json.parser.CollectionParser;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 
@@ -24,18 +23,15 @@ public class ParseFile {
                 System.err.println("File " + file +  " does not exist!");
                 System.exit(1);
             }
-            FileInputStream stream = new FileInputStream(file);
-            try {
-                parseAndDump(stream);
-            }
-            finally {
-                stream.close();
-            }
+            dump(new CollectionParser().parse(file.toPath()));
         }
     }
 
     private static void parseAndDump(InputStream stream) throws IOException {
-        Collection collection = new CollectionParser().parse(stream);
+        dump(new CollectionParser().parse(stream));
+    }
+
+    private static void dump(Collection collection) {
         System.err.println("Parsed Collection with href: " + collection.getHref());
         System.out.println(collection.toString());
     }
@@ -79,6 +79,34 @@ public class Errors {
             ).map(Errors::new);
         }
 
+        /**
+         * Errors are immutable once built, so they are extracted once per instance.
+         */
+        @Override
+        public boolean isCacheable() {
+            return true;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o != null && o.getClass() == getClass();
+        }
+
+        @Override
+        public int hashCode() {
+            return getClass().hashCode();
+        }
+
+        @Override
+        public Set<String> keys() {
+            return Collections.singleton("errors");
+        }
+
+        @Override
+        public void applyTo(Option<Errors> value, Map<String, Json.JValue> fields) {
+            value.forEach(errors -> fields.put("errors", errors.asJson()));
+        }
+
         @Override
         public Json.JObject apply(Option<Errors> value) {
             return Json.jObject(value.map(Stream::of)
@@ -2,8 +2,18 @@ package net.hamnaberg.json.extension;
 
 import net.hamnaberg.json.Json;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+
 public abstract class Extended<T> {
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<Extended, ConcurrentMap> EXTRACTED =
+            AtomicReferenceFieldUpdater.newUpdater(Extended.class, ConcurrentMap.class, "extracted");
+    private static final Object NONE = new Object();
+
     protected final Json.JObject delegate;
+    private volatile ConcurrentMap<Extension<?>, Object> extracted;
 
     protected Extended(Json.JObject delegate) {
         this.delegate = delegate;
@@ -11,8 +21,27 @@ public abstract class Extended<T> {
 
     protected abstract T copy(Json.JObject value);
 
+    /**
+     * Values of {@link Extension#isCacheable() cacheable} extensions are extracted once,
+     * and the same value is returned by every call with an equal extension.
+     */
+    @SuppressWarnings("unchecked")
     public <A> A getExtension(Extension<A> extension) {
-        return extension.extract(delegate);
+        if (!extension.isCacheable()) {
+            return extension.extract(delegate);
+        }
+        ConcurrentMap<Extension<?>, Object> cache = extracted;
+        if (cache == null) {
+            EXTRACTED.compareAndSet(this, null, new ConcurrentHashMap<Extension<?>, Object>(4));
+            cache = extracted;
+        }
+        Object value = cache.get(extension);
+        if (value == null) {
+            A a = extension.extract(delegate);
+            Object existing = cache.putIfAbsent(extension, a == null ? NONE : a);
+            return existing == null ? a : existing == NONE ? null : (A) existing;
+        }
+        return value == NONE ? null : (A) value;
     }
 
     @SuppressWarnings("unchecked")
@@ -8,6 +8,37 @@ public abstract class Extension<A> {
     public abstract A extract(Json.JObject node);
     public abstract Json.JObject apply(A value);
 
+    /**
+     * The keys this extension reads and writes, or an empty set if they are not known up front.
+     * An extension which declares its keys must only read those keys in {@link #extract(Json.JObject)},
+     * which lets {@link ExtensionCodec} hand it only its own fields.
+     * Extensions used together in a codec may not declare the same key.
+     */
+    public Set<String> keys() {
+        return Collections.emptySet();
+    }
+
+    /**
+     * Adds the fields for the value to the given map, instead of building an object of them.
+     * By default the fields of {@link #apply(Object)} are added.
+     */
+    public void applyTo(A value, Map<String, Json.JValue> fields) {
+        Json.JObject applied = apply(value);
+        if (applied != null) {
+            applied.forEach((String name, Json.JValue field) -> fields.put(name, field));
+        }
+    }
+
+    /**
+     * Whether extracted values may be kept and shared by the instance they were extracted from.
+     * Only extensions which extract immutable values should be cacheable.
+     * Cached values are looked up by the extension, so cacheable extensions should implement equals and hashCode
+     * when new instances are created for each lookup.
+     */
+    public boolean isCacheable() {
+        return false;
+    }
+
     public static <A, B> Extension<Tuple2<A, B>> combine(Extension<A> a, Extension<B> b) {
         return new Tuple2Extension<A, B>(Tuple2.of(a, b));
     }
@@ -16,6 +47,21 @@ public abstract class Extension<A> {
         return new Tuple3Extension<A, B, C>(Tuple3.of(a, b, c));
     }
 
+    /**
+     * The keys of combined extensions are only known if they are known for all of them.
+     */
+    @SafeVarargs
+    private static Set<String> union(Set<String>... sets) {
+        Set<String> keys = new LinkedHashSet<>();
+        for (Set<String> set : sets) {
+            if (set.isEmpty()) {
+                return Collections.emptySet();
+            }
+            keys.addAll(set);
+        }
+        return Collections.unmodifiableSet(keys);
+    }
+
     private static class Tuple2Extension<A, B> extends Extension<Tuple2<A, B>> {
         private Tuple2<Extension<A>, Extension<B>> delegate;
 
@@ -28,10 +74,37 @@ public abstract class Extension<A> {
             return new Tuple2<>(delegate._1.extract(node), delegate._2.extract(node));
         }
 
+        @Override
+        public boolean isCacheable() {
+            return delegate._1.isCacheable() && delegate._2.isCacheable();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Tuple2Extension && delegate.equals(((Tuple2Extension) o).delegate);
+        }
+
+        @Override
+        public int hashCode() {
+            return delegate.hashCode();
+        }
+
         @Override
         public Json.JObject apply(Tuple2<A, B> value) {
-            Json.JObject first = delegate._1.apply(value._1);
-            return first.concat(delegate._2.apply(value._2));
+            Map<String, Json.JValue> fields = new LinkedHashMap<>();
+            applyTo(value, fields);
+            return Json.jObject(fields);
+        }
+
+        @Override
+        public void applyTo(Tuple2<A, B> value, Map<String, Json.JValue> fields) {
+            delegate._1.applyTo(value._1, fields);
+            delegate._2.applyTo(value._2, fields);
+        }
+
+        @Override
+        public Set<String> keys() {
+            return union(delegate._1.keys(), delegate._2.keys());
         }
     }
 
@@ -47,12 +120,38 @@ public abstract class Extension<A> {
             return Tuple3.of(delegate._1.extract(node), delegate._2.extract(node), delegate._3.extract(node));
         }
 
+        @Override
+        public boolean isCacheable() {
+            return delegate._1.isCacheable() && delegate._2.isCacheable() && delegate._3.isCacheable();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Tuple3Extension && delegate.equals(((Tuple3Extension) o).delegate);
+        }
+
+        @Override
+        public int hashCode() {
+            return delegate.hashCode();
+        }
+
         @Override
         public Json.JObject apply(Tuple3<A, B, C> value) {
-            Json.JObject first = delegate._1.apply(value._1);
-            return first
-                    .concat(delegate._2.apply(value._2))
-                    .concat(delegate._3.apply(value._3));
+            Map<String, Json.JValue> fields = new LinkedHashMap<>();
+            applyTo(value, fields);
+            return Json.jObject(fields);
+        }
+
+        @Override
+        public void applyTo(Tuple3<A, B, C> value, Map<String, Json.JValue> fields) {
+            delegate._1.applyTo(value._1, fields);
+            delegate._2.applyTo(value._2, fields);
+            delegate._3.applyTo(value._3, fields);
+        }
+
+        @Override
+        public Set<String> keys() {
+            return union(delegate._1.keys(), delegate._2.keys(), delegate._3.keys());
         }
     }
 }
@@ -0,0 +1,175 @@
+/*
+ * Copyright 2012 Erlend Hamnaberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.hamnaberg.json.extension;
+
+import net.hamnaberg.json.Json;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Extracts and applies a fixed set of extensions together.
+ * <p>
+ * Extensions which declare their {@link Extension#keys() keys} are extracted from their own fields,
+ * which are partitioned by key in one walk over the object. An extension whose keys cover every field of the object
+ * is given the object itself, and extensions without declared keys are given the whole object.
+ * Extensions may not declare the same key.
+ * Applying writes the fields of all extensions into one map,
+ * and concatenates it with the object once, instead of concatenating an object per extension.
+ * <p>
+ * Immutable and thread-safe.
+ */
+public final class ExtensionCodec {
+    private static final Json.JObject EMPTY = Json.jEmptyObject();
+
+    private final List<Extension<?>> extensions;
+    private final Map<String, Integer> owners = new HashMap<>();
+
+    private ExtensionCodec(List<Extension<?>> extensions) {
+        this.extensions = extensions;
+        for (int i = 0; i < extensions.size(); i++) {
+            for (String key : extensions.get(i).keys()) {
+                if (owners.putIfAbsent(key, i) != null) {
+                    throw new IllegalArgumentException(String.format("Key '%s' is declared by more than one extension", key));
+                }
+            }
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if two extensions declare the same key
+     */
+    public static ExtensionCodec of(Extension<?>... extensions) {
+        return of(Arrays.asList(extensions));
+    }
+
+    /**
+     * @throws IllegalArgumentException if two extensions declare the same key
+     */
+    public static ExtensionCodec of(List<Extension<?>> extensions) {
+        return new ExtensionCodec(Collections.unmodifiableList(new ArrayList<>(extensions)));
+    }
+
+    public Values extract(Extended<?> extended) {
+        return extract(extended.asJson());
+    }
+
+    public Values extract(Json.JObject node) {
+        List<Map<String, Json.JValue>> owned = new ArrayList<>(Collections.<Map<String, Json.JValue>>nCopies(extensions.size(), null));
+        if (!owners.isEmpty()) {
+            node.forEach((String name, Json.JValue value) -> {
+                Integer owner = owners.get(name);
+                if (owner != null) {
+                    Map<String, Json.JValue> fields = owned.get(owner);
+                    if (fields == null) {
+                        owned.set(owner, fields = new LinkedHashMap<>());
+                    }
+                    fields.put(name, value);
+                }
+            });
+        }
+        Object[] values = new Object[extensions.size()];
+        for (int i = 0; i < values.length; i++) {
+            Extension<?> extension = extensions.get(i);
+            Map<String, Json.JValue> fields = owned.get(i);
+            if (extension.keys().isEmpty() || (fields != null && fields.size() == node.size())) {
+                values[i] = extension.extract(node);
+            }
+            else {
+                values[i] = extension.extract(fields == null ? EMPTY : Json.jObject(fields));
+            }
+        }
+        return new Values(this, values, set(values.length));
+    }
+
+    /**
+     * Values with none set, for applying.
+     */
+    public Values values() {
+        return new Values(this, new Object[extensions.size()], new boolean[extensions.size()]);
+    }
+
+    /**
+     * Applies the values which are set to the target, concatenating their fields with it once.
+     *
+     * @return the target if no fields were added
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends Extended<T>> T apply(T target, Values values) {
+        if (values.codec != this) {
+            throw new IllegalArgumentException("Values belong to another codec");
+        }
+        Map<String, Json.JValue> fields = new LinkedHashMap<>();
+        for (int i = 0; i < values.values.length; i++) {
+            if (values.set[i]) {
+                ((Extension<Object>) extensions.get(i)).applyTo(values.values[i], fields);
+            }
+        }
+        if (fields.isEmpty()) {
+            return target;
+        }
+        return target.copy(target.delegate.concat(Json.jObject(fields)));
+    }
+
+    private int indexOf(Extension<?> extension) {
+        int index = extensions.indexOf(extension);
+        if (index < 0) {
+            throw new IllegalArgumentException("Extension is not part of this codec: " + extension);
+        }
+        return index;
+    }
+
+    private static boolean[] set(int length) {
+        boolean[] set = new boolean[length];
+        Arrays.fill(set, true);
+        return set;
+    }
+
+    /**
+     * The values of the extensions of a codec. Immutable.
+     */
+    public static final class Values {
+        private final ExtensionCodec codec;
+        private final Object[] values;
+        private final boolean[] set;
+
+        private Values(ExtensionCodec codec, Object[] values, boolean[] set) {
+            this.codec = codec;
+            this.values = values;
+            this.set = set;
+        }
+
+        @SuppressWarnings("unchecked")
+        public <A> A get(Extension<A> extension) {
+            return (A) values[codec.indexOf(extension)];
+        }
+
+        public <A> Values with(Extension<A> extension, A value) {
+            int index = codec.indexOf(extension);
+            Object[] values = this.values.clone();
+            boolean[] set = this.set.clone();
+            values[index] = value;
+            set[index] = true;
+            return new Values(codec, values, set);
+        }
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Copyright 2012 Erlend Hamnaberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.hamnaberg.json.generator;
+
+import javaslang.Tuple2;
+import javaslang.control.Option;
+import net.hamnaberg.json.Collection;
+import net.hamnaberg.json.Error;
+import net.hamnaberg.json.Item;
+import net.hamnaberg.json.Json;
+import net.hamnaberg.json.Template;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes a collection one item at a time, without building the collection first.
+ * <p>
+ * The fields of the header are written in their own order, with the items where the header has its {@code items} field.
+ * Headers without one get the items after their leading version, href and links, where a built collection has them.
+ * The fields before the items are written straight away, followed by each item as it is written,
+ * and the fields after the items are written by {@link #finish()}.
+ * The output is the same as {@link Collection#writeTo(Writer)} gives for the header with the items added.
+ * Any items in the header are ignored.
+ * <p>
+ * Not thread-safe.
+ */
+public final class CollectionWriter implements Closeable, Flushable {
+    private final Output output;
+    private final Json.JObject header;
+    private final int itemsIndex;
+    private boolean emptyHeader = true;
+    private boolean hasItems;
+    private boolean finished;
+
+    /**
+     * Writes UTF-8 encoded bytes directly to the stream, through a {@link Utf8JsonWriter}.
+     */
+    public CollectionWriter(OutputStream stream, Collection header) throws IOException {
+        this(new StreamOutput(stream), header);
+    }
+
+    public CollectionWriter(Writer writer, Collection header) throws IOException {
+        this(new WriterOutput(writer), header);
+    }
+
+    private CollectionWriter(Output output, Collection header) throws IOException {
+        this.output = output;
+        this.header = header.asJson();
+        this.itemsIndex = itemsIndex(this.header);
+        output.raw("{\"collection\":{");
+        int index = 0;
+        for (Tuple2<String, Json.JValue> field : this.header) {
+            if (index++ == itemsIndex) {
+                break;
+            }
+            writeField(field);
+        }
+    }
+
+    /**
+     * The position of the items among the fields of the header.
+     */
+    private static int itemsIndex(Json.JObject header) {
+        int index = 0;
+        int firstTail = -1;
+        for (Tuple2<String, Json.JValue> field : header) {
+            if ("items".equals(field._1)) {
+                return index;
+            }
+            if (firstTail < 0 && !isHead(field._1)) {
+                firstTail = index;
+            }
+            index++;
+        }
+        return firstTail < 0 ? index : firstTail;
+    }
+
+    public void write(Item item) throws IOException {
+        if (finished) {
+            throw new IllegalStateException("Collection has already been finished");
+        }
+        if (hasItems) {
+            output.raw(",");
+        }
+        else {
+            output.raw(emptyHeader ? "\"items\":[" : ",\"items\":[");
+            hasItems = true;
+        }
+        output.value(item.asJson());
+    }
+
+    public void writeAll(Iterator<Item> items) throws IOException {
+        while (items.hasNext()) {
+            write(items.next());
+        }
+    }
+
+    public void writeAll(Stream<Item> items) throws IOException {
+        writeAll(items.iterator());
+    }
+
+    /**
+     * Writes the rest of the header, and flushes the writer.
+     */
+    public void finish() throws IOException {
+        finish(Option.none(), Option.none());
+    }
+
+    /**
+     * Writes the rest of the header, using the given template and error instead of any in the header,
+     * and flushes the writer.
+     *
+     * @throws IllegalStateException if the template or error to replace comes before the items in the header,
+     * and so has already been written
+     */
+    public void finish(Option<Template> template, Option<Error> error) throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (hasItems) {
+            output.raw("]");
+        }
+        int index = 0;
+        for (Tuple2<String, Json.JValue> field : header) {
+            boolean replaced = ("template".equals(field._1) && template.isDefined())
+                    || ("error".equals(field._1) && error.isDefined());
+            if (index++ < itemsIndex) {
+                if (replaced) {
+                    throw new IllegalStateException("The " + field._1 + " of the header has already been written");
+                }
+                continue;
+            }
+            if (replaced || "items".equals(field._1)) {
+                continue;
+            }
+            writeField(field);
+        }
+        for (Template value : template) {
+            writeField(new Tuple2<>("template", value.asJson()));
+        }
+        for (Error value : error) {
+            writeField(new Tuple2<>("error", value.asJson()));
+        }
+        output.raw("}}");
+        output.flush();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        output.flush();
+    }
+
+    /**
+     * Finishes the collection if needed, and closes the writer.
+     */
+    @Override
+    public void close() throws IOException {
+        try (Output o = output) {
+            finish();
+        }
+    }
+
+    private void writeField(Tuple2<String, Json.JValue> field) throws IOException {
+        if (!emptyHeader || hasItems) {
+            output.raw(",");
+        }
+        emptyHeader = false;
+        output.name(field._1);
+        output.value(field._2);
+    }
+
+    private static boolean isHead(String name) {
+        return "version".equals(name) || "href".equals(name) || "links".equals(name);
+    }
+
+    private interface Output extends Closeable, Flushable {
+        void raw(String ascii) throws IOException;
+
+        void name(String name) throws IOException;
+
+        void value(Json.JValue value) throws IOException;
+    }
+
+    private static final class WriterOutput implements Output {
+        private final Writer writer;
+
+        private WriterOutput(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void raw(String ascii) throws IOException {
+            writer.write(ascii);
+        }
+
+        @Override
+        public void name(String name) throws IOException {
+            writer.write(Json.jString(name).nospaces());
+            writer.write(':');
+        }
+
+        @Override
+        public void value(Json.JValue value) throws IOException {
+            writer.write(value.nospaces());
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            writer.close();
+        }
+    }
+
+    private static final class StreamOutput implements Output {
+        private final OutputStream stream;
+        private final Utf8JsonWriter writer;
+
+        private StreamOutput(OutputStream stream) {
+            this.stream = stream;
+            this.writer = new Utf8JsonWriter(stream);
+        }
+
+        @Override
+        public void raw(String ascii) throws IOException {
+            writer.writeRaw(ascii);
+        }
+
+        @Override
+        public void name(String name) throws IOException {
+            writer.writeString(name);
+            writer.writeRaw(':');
+        }
+
+        @Override
+        public void value(Json.JValue value) throws IOException {
+            writer.writeValue(value);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try (OutputStream s = stream) {
+                writer.close();
+            }
+        }
+    }
+}
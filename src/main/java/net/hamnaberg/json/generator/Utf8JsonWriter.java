@@ -0,0 +1,280 @@
+/*
+ * Copyright 2012 Erlend Hamnaberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.hamnaberg.json.generator;
+
+import javaslang.Tuple2;
+import net.hamnaberg.json.Json;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes json as UTF-8 encoded bytes directly to a stream, without going through a Writer.
+ * <p>
+ * The output is the same as {@link Json.JValue#nospaces()} encoded as UTF-8.
+ * Bytes are collected in a buffer which is reused by the next writer on the same thread once this writer is closed,
+ * and written to the stream in blocks.
+ * <p>
+ * Closing the writer flushes it, but does not close the stream. Not thread-safe.
+ */
+public final class Utf8JsonWriter implements Closeable, Flushable {
+    private static final int BUFFER_SIZE = 8192;
+    private static final ThreadLocal<byte[]> BUFFERS = new ThreadLocal<>();
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private final OutputStream stream;
+    private byte[] buffer;
+    private int position;
+
+    public Utf8JsonWriter(OutputStream stream) {
+        this.stream = stream;
+        byte[] pooled = BUFFERS.get();
+        if (pooled != null) {
+            BUFFERS.remove();
+            this.buffer = pooled;
+        }
+        else {
+            this.buffer = new byte[BUFFER_SIZE];
+        }
+    }
+
+    /**
+     * Writes the value to the stream, and flushes it.
+     */
+    public static void write(Json.JValue value, OutputStream stream) throws IOException {
+        try (Utf8JsonWriter writer = new Utf8JsonWriter(stream)) {
+            writer.writeValue(value);
+        }
+    }
+
+    /**
+     * Writes the value wrapped in an object with a single field, as in {@code {"name":value}},
+     * and flushes the stream.
+     */
+    public static void write(String name, Json.JValue value, OutputStream stream) throws IOException {
+        try (Utf8JsonWriter writer = new Utf8JsonWriter(stream)) {
+            writer.writeRaw('{');
+            writer.writeString(name);
+            writer.writeRaw(':');
+            writer.writeValue(value);
+            writer.writeRaw('}');
+        }
+    }
+
+    public void writeValue(Json.JValue value) throws IOException {
+        if (value instanceof Json.JString) {
+            writeString(((Json.JString) value).value);
+        }
+        else if (value instanceof Json.JObject) {
+            writeObject((Json.JObject) value);
+        }
+        else if (value instanceof Json.JArray) {
+            writeArray((Json.JArray) value);
+        }
+        else if (value instanceof Json.JNumber) {
+            writeRaw(((Json.JNumber) value).value.toString());
+        }
+        else if (value instanceof Json.JBoolean) {
+            writeRaw(((Json.JBoolean) value).value ? "true" : "false");
+        }
+        else {
+            writeRaw("null");
+        }
+    }
+
+    private void writeObject(Json.JObject object) throws IOException {
+        writeRaw('{');
+        boolean first = true;
+        for (Tuple2<String, Json.JValue> field : object) {
+            if (!first) {
+                writeRaw(',');
+            }
+            first = false;
+            writeString(field._1);
+            writeRaw(':');
+            writeValue(field._2);
+        }
+        writeRaw('}');
+    }
+
+    private void writeArray(Json.JArray array) throws IOException {
+        writeRaw('[');
+        boolean first = true;
+        for (Json.JValue value : array) {
+            if (!first) {
+                writeRaw(',');
+            }
+            first = false;
+            writeValue(value);
+        }
+        writeRaw(']');
+    }
+
+    /**
+     * Writes the string quoted and escaped.
+     */
+    public void writeString(String value) throws IOException {
+        writeRaw('"');
+        int length = value.length();
+        int i = 0;
+        while (i < length) {
+            if (position == buffer.length) {
+                flushBuffer();
+            }
+            int limit = Math.min(length, i + buffer.length - position);
+            while (i < limit) {
+                char c = value.charAt(i);
+                if (c < 32 || c >= 128 || c == '"' || c == '\\') {
+                    break;
+                }
+                buffer[position++] = (byte) c;
+                i++;
+            }
+            if (i < limit) {
+                i = writeSpecial(value, i);
+            }
+        }
+        writeRaw('"');
+    }
+
+    private int writeSpecial(String value, int index) throws IOException {
+        char c = value.charAt(index);
+        ensure(6);
+        if (c < 128) {
+            buffer[position++] = '\\';
+            switch (c) {
+                case '"':
+                    buffer[position++] = '"';
+                    break;
+                case '\\':
+                    buffer[position++] = '\\';
+                    break;
+                case '\b':
+                    buffer[position++] = 'b';
+                    break;
+                case '\t':
+                    buffer[position++] = 't';
+                    break;
+                case '\n':
+                    buffer[position++] = 'n';
+                    break;
+                case '\f':
+                    buffer[position++] = 'f';
+                    break;
+                case '\r':
+                    buffer[position++] = 'r';
+                    break;
+                default:
+                    buffer[position++] = 'u';
+                    buffer[position++] = '0';
+                    buffer[position++] = '0';
+                    buffer[position++] = HEX[c >> 4];
+                    buffer[position++] = HEX[c & 0xF];
+                    break;
+            }
+        }
+        else if (c < 0x800) {
+            buffer[position++] = (byte) (0xC0 | (c >> 6));
+            buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        }
+        else if (Character.isSurrogate(c)) {
+            if (Character.isHighSurrogate(c) && index + 1 < value.length() && Character.isLowSurrogate(value.charAt(index + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(index + 1));
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+                return index + 2;
+            }
+            buffer[position++] = '?';
+        }
+        else {
+            buffer[position++] = (byte) (0xE0 | (c >> 12));
+            buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+            buffer[position++] = (byte) (0x80 | (c & 0x3F));
+        }
+        return index + 1;
+    }
+
+    /**
+     * Writes the given ASCII characters as they are.
+     */
+    public void writeRaw(String ascii) throws IOException {
+        int length = ascii.length();
+        if (length > buffer.length - position) {
+            flushBuffer();
+        }
+        if (length > buffer.length) {
+            stream.write(ascii.getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        for (int i = 0; i < length; i++) {
+            buffer[position++] = (byte) ascii.charAt(i);
+        }
+    }
+
+    /**
+     * Writes the given ASCII character as it is.
+     */
+    public void writeRaw(char ascii) throws IOException {
+        if (position == buffer.length) {
+            flushBuffer();
+        }
+        buffer[position++] = (byte) ascii;
+    }
+
+    private void ensure(int length) throws IOException {
+        if (buffer.length - position < length) {
+            flushBuffer();
+        }
+    }
+
+    private void flushBuffer() throws IOException {
+        if (position > 0) {
+            stream.write(buffer, 0, position);
+            position = 0;
+        }
+    }
+
+    /**
+     * Writes any buffered bytes, and flushes the stream.
+     */
+    @Override
+    public void flush() throws IOException {
+        flushBuffer();
+        stream.flush();
+    }
+
+    /**
+     * Flushes the writer, and hands the buffer back for reuse. The stream is not closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (buffer == null) {
+            return;
+        }
+        try {
+            flush();
+        } finally {
+            BUFFERS.set(buffer);
+            buffer = null;
+        }
+    }
+}
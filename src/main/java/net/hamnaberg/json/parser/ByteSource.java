@@ -0,0 +1,145 @@
+/*
+ * Copyright 2012 Erlend Hamnaberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.hamnaberg.json.parser;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Random access bytes which a parser can be opened on, either as a whole or for a slice.
+ * Offsets are relative to the start of the source.
+ */
+abstract class ByteSource {
+    private static final long MAX_MAPPING = Integer.MAX_VALUE;
+
+    abstract JsonParser createParser(JsonFactory factory) throws IOException;
+
+    abstract JsonParser createParser(JsonFactory factory, long offset, long length) throws IOException;
+
+    static ByteSource of(byte[] bytes, int offset, int length) {
+        return new ArraySource(bytes, offset, length);
+    }
+
+    /**
+     * A source over the remaining bytes of the given buffer. The position of the buffer is not modified.
+     */
+    static ByteSource of(ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            return of(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        }
+        return new BufferSource(buffer);
+    }
+
+    /**
+     * Memory-maps the given file, in chunks if it is larger than a single mapping allows.
+     */
+    static ByteSource map(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            ByteBuffer[] chunks = new ByteBuffer[(int) ((size + MAX_MAPPING - 1) / MAX_MAPPING)];
+            for (int i = 0; i < chunks.length; i++) {
+                long position = i * MAX_MAPPING;
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAX_MAPPING, size - position));
+            }
+            return chunked(chunks);
+        }
+    }
+
+    /**
+     * A source over the remaining bytes of the given buffers, read in order.
+     */
+    static ByteSource chunked(ByteBuffer... chunks) {
+        return new BufferSource(chunks);
+    }
+
+    private static final class ArraySource extends ByteSource {
+        private final byte[] bytes;
+        private final int offset;
+        private final int length;
+
+        private ArraySource(byte[] bytes, int offset, int length) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        JsonParser createParser(JsonFactory factory) throws IOException {
+            return factory.createParser(bytes, offset, length);
+        }
+
+        @Override
+        JsonParser createParser(JsonFactory factory, long offset, long length) throws IOException {
+            return factory.createParser(bytes, this.offset + (int) offset, (int) length);
+        }
+    }
+
+    private static final class BufferSource extends ByteSource {
+        private final ByteBuffer[] chunks;
+        private final long[] starts;
+
+        private BufferSource(ByteBuffer... chunks) {
+            this.chunks = chunks;
+            this.starts = new long[chunks.length];
+            long start = 0;
+            for (int i = 0; i < chunks.length; i++) {
+                starts[i] = start;
+                start += chunks[i].remaining();
+            }
+        }
+
+        @Override
+        JsonParser createParser(JsonFactory factory) throws IOException {
+            ByteBuffer[] buffers = new ByteBuffer[chunks.length];
+            for (int i = 0; i < chunks.length; i++) {
+                buffers[i] = chunks[i].duplicate();
+            }
+            return factory.createParser(new ByteBufferInputStream(buffers));
+        }
+
+        @Override
+        JsonParser createParser(JsonFactory factory, long offset, long length) throws IOException {
+            int first = chunkAt(offset);
+            int last = chunkAt(offset + length - 1);
+            ByteBuffer[] buffers = new ByteBuffer[last - first + 1];
+            for (int i = first; i <= last; i++) {
+                ByteBuffer chunk = chunks[i];
+                int from = (int) Math.max(0, offset - starts[i]);
+                int to = (int) Math.min(chunk.remaining(), offset + length - starts[i]);
+                ByteBuffer slice = chunk.duplicate();
+                slice.limit(chunk.position() + to);
+                slice.position(chunk.position() + from);
+                buffers[i - first] = slice;
+            }
+            return factory.createParser(new ByteBufferInputStream(buffers));
+        }
+
+        private int chunkAt(long offset) {
+            int i = chunks.length - 1;
+            while (i > 0 && starts[i] > offset) {
+                i--;
+            }
+            return i;
+        }
+    }
+}
@@ -16,24 +16,43 @@
 
 package net.hamnaberg.json.parser;
 
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import net.hamnaberg.json.*;
 import net.hamnaberg.json.Collection;
-import net.hamnaberg.json.jackson.JacksonStreamingParser;
-import net.hamnaberg.json.util.Charsets;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
 import javaslang.control.Option;
 
 /**
  * Parser for a vnd.collection+json document.
+ *
+ * @see ParseOptions
  */
 public class CollectionParser {
 
-    private final JacksonStreamingParser parser = new JacksonStreamingParser();
+    private final JsonFactory factory = new JsonFactory();
+    private final ParseOptions options;
+
+    public CollectionParser() {
+        this(ParseOptions.DEFAULT);
+    }
+
+    public CollectionParser(ParseOptions options) {
+        this.options = options;
+    }
 
     public Collection parse(Reader reader) throws IOException {
         try {
-            return parse(parser.parse(reader));
+            return parse(factory.createParser(reader));
         } finally {
             if (reader != null) {
                 reader.close();
@@ -43,7 +62,7 @@ public class CollectionParser {
 
     /**
      * Parses a Collection from the given stream.
-     * The stream is wrapped in a BufferedReader.
+     * The bytes are decoded by the parser itself, without going through a Reader.
      * <p>
      * The stream is expected to be UTF-8 encoded.
      *
@@ -52,7 +71,63 @@ public class CollectionParser {
      * @throws IOException
      */
     public Collection parse(InputStream stream) throws IOException {
-        return parse(new BufferedReader(new InputStreamReader(stream, Charsets.UTF_8)));
+        try {
+            return parse(factory.createParser(stream));
+        } finally {
+            if (stream != null) {
+                stream.close();
+            }
+        }
+    }
+
+    /**
+     * Parses a Collection from the given UTF-8 encoded bytes.
+     *
+     * @param bytes the bytes to parse
+     * @return a Collection
+     * @throws IOException
+     */
+    public Collection parse(byte[] bytes) throws IOException {
+        return parse(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Parses a Collection from a slice of the given UTF-8 encoded bytes.
+     *
+     * @param bytes the bytes to parse
+     * @param offset index of the first byte to parse
+     * @param length number of bytes to parse
+     * @return a Collection
+     * @throws IOException
+     */
+    public Collection parse(byte[] bytes, int offset, int length) throws IOException {
+        return parse(ByteSource.of(bytes, offset, length));
+    }
+
+    /**
+     * Parses a Collection from the remaining UTF-8 encoded bytes of the given buffer.
+     * The position of the buffer is not modified.
+     *
+     * @param buffer the buffer to parse
+     * @return a Collection
+     * @throws IOException
+     */
+    public Collection parse(ByteBuffer buffer) throws IOException {
+        return parse(ByteSource.of(buffer));
+    }
+
+    /**
+     * Parses a Collection from the given UTF-8 encoded file.
+     * <p>
+     * The file is memory-mapped and parsed directly from the mapped region,
+     * in chunks if it is larger than a single mapping allows.
+     *
+     * @param path the file to parse
+     * @return a Collection
+     * @throws IOException
+     */
+    public Collection parse(Path path) throws IOException {
+        return parse(ByteSource.map(path));
     }
 
     /**
@@ -66,9 +141,82 @@ public class CollectionParser {
         return parse(new StringReader(input));
     }
 
+    /**
+     * Streams the items of a Collection from the given reader.
+     * <p>
+     * Each item is emitted as soon as it has been read, so only one item is held in memory at a time.
+     * The rest of the collection (href, links, queries, template etc.) is passed to the
+     * {@code header} callback, without any items, once the whole document has been read.
+     * The returned stream must be closed to release the reader.
+     * <p>
+     * Failures while reading the items are thrown as {@link UncheckedIOException}.
+     *
+     * @param reader the reader
+     * @param header callback receiving the collection without items
+     * @return a Stream of items
+     * @throws IOException if the document does not contain a collection
+     */
+    public Stream<Item> streamItems(Reader reader, Consumer<Collection> header) throws IOException {
+        return streamItems(factory.createParser(reader), header);
+    }
+
+    /**
+     * Streams the items of a Collection from the given stream.
+     * The bytes are decoded by the parser itself, without going through a Reader.
+     * <p>
+     * The stream is expected to be UTF-8 encoded.
+     *
+     * @param stream the stream
+     * @param header callback receiving the collection without items
+     * @return a Stream of items
+     * @throws IOException if the document does not contain a collection
+     * @see #streamItems(Reader, Consumer)
+     */
+    public Stream<Item> streamItems(InputStream stream, Consumer<Collection> header) throws IOException {
+        return streamItems(factory.createParser(stream), header);
+    }
+
+    /**
+     * Streams the items of a Collection from the given UTF-8 encoded file.
+     * <p>
+     * The file is memory-mapped and parsed directly from the mapped region.
+     *
+     * @param path the file to parse
+     * @param header callback receiving the collection without items
+     * @return a Stream of items
+     * @throws IOException if the document does not contain a collection
+     * @see #streamItems(Reader, Consumer)
+     */
+    public Stream<Item> streamItems(Path path, Consumer<Collection> header) throws IOException {
+        return streamItems(ByteSource.map(path).createParser(factory), header);
+    }
+
+    /**
+     * Creates a parser which is fed the document in chunks as they arrive, for use on non-blocking event loops.
+     *
+     * @return a new non-blocking parser
+     * @throws IOException
+     */
+    public NonBlockingCollectionParser nonBlocking() throws IOException {
+        return new NonBlockingCollectionParser(this, factory, options, Option.none());
+    }
+
+    /**
+     * Creates a parser which is fed the document in chunks as they arrive, handing each item
+     * to the given callback as soon as it is complete.
+     *
+     * @param items callback receiving each item
+     * @return a new non-blocking parser
+     * @throws IOException
+     * @see #nonBlocking()
+     */
+    public NonBlockingCollectionParser nonBlocking(Consumer<Item> items) throws IOException {
+        return new NonBlockingCollectionParser(this, factory, options, Option.some(items));
+    }
+
     public Template parseTemplate(Reader reader) throws IOException {
         try {
-            return parseTemplate(parser.parse(reader).asJsonObjectOrEmpty());
+            return parseTemplate(readTree(factory.createParser(reader)).asJsonObjectOrEmpty());
         } finally {
             if (reader != null) {
                 reader.close();
@@ -77,35 +225,110 @@ public class CollectionParser {
     }
 
     /**
-     * Parses a JsonCollection from the given stream.
-     * The stream is wrapped in a BufferedReader.
+     * Parses a Template from the given stream.
+     * The bytes are decoded by the parser itself, without going through a Reader.
      * <p>
      * The stream is expected to be UTF-8 encoded.
      *
      * @param stream the stream
-     * @return a jsonCollection
+     * @return a Template
      * @throws IOException
      */
     public Template parseTemplate(InputStream stream) throws IOException {
-        return parseTemplate(new BufferedReader(new InputStreamReader(stream, Charsets.UTF_8)));
+        try {
+            return parseTemplate(readTree(factory.createParser(stream)).asJsonObjectOrEmpty());
+        } finally {
+            if (stream != null) {
+                stream.close();
+            }
+        }
+    }
+
+    /**
+     * Parses a Template from the given UTF-8 encoded bytes.
+     *
+     * @param bytes the bytes to parse
+     * @return a Template
+     * @throws IOException
+     */
+    public Template parseTemplate(byte[] bytes) throws IOException {
+        return parseTemplate(readTree(factory.createParser(bytes)).asJsonObjectOrEmpty());
     }
 
     public Template parseTemplate(String input) throws IOException {
         return parseTemplate(new StringReader(input));
     }
 
-    private Collection parse(Json.JValue node) throws ParseException {
-        Option<Json.JObject> collectionNode = node.asJsonObject().flatMap(obj -> obj.getAsObject("collection"));
-        if (collectionNode.isDefined()) {
-            return parseCollection(collectionNode.get());
+    private Collection parse(JsonParser jsonParser) throws IOException {
+        try (CollectionReader reader = new CollectionReader(jsonParser, options)) {
+            List<Json.JValue> items = new ArrayList<>();
+            while (reader.nextItem()) {
+                items.add(reader.readItem());
+            }
+            return parseCollection(reader.getCollection(items));
+        } catch (JsonProcessingException e) {
+            throw malformed(e);
         }
-        throw new ParseException("Missing \"collection\" property");
     }
 
-    private Collection parseCollection(Json.JObject collectionNode) {
-        Collection c = objectFactory.createCollection(collectionNode);
-        c.validate();
-        return c;
+    Collection parse(ByteSource source) throws IOException {
+        if (options.getPool().isEmpty()) {
+            return parse(source.createParser(factory));
+        }
+        try {
+            return parseCollection(new ParallelItemParser(factory, options.getPool().get(), options).parse(source));
+        } catch (JsonProcessingException e) {
+            throw malformed(e);
+        }
+    }
+
+    private Stream<Item> streamItems(JsonParser jsonParser, Consumer<Collection> header) throws IOException {
+        CollectionReader reader = new CollectionReader(jsonParser, options);
+        try {
+            reader.open();
+        } catch (IOException | RuntimeException e) {
+            try {
+                reader.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            if (e instanceof JsonProcessingException) {
+                throw malformed((JsonProcessingException) e);
+            }
+            throw e;
+        }
+        ItemIterator iterator = new ItemIterator(reader, header);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(iterator::close);
+    }
+
+    private Json.JValue readTree(JsonParser jsonParser) throws IOException {
+        try (JsonParser p = jsonParser) {
+            return TreeReader.readRoot(p);
+        } catch (JsonProcessingException e) {
+            throw malformed(e);
+        }
+    }
+
+    Collection parseCollection(Json.JObject collectionNode) {
+        switch (options.getValidation()) {
+            case NONE:
+                return objectFactory.createCollection(collectionNode);
+            case LAZY:
+                return objectFactory.createLazilyValidatedCollection(collectionNode);
+            default:
+                Collection c = objectFactory.createCollection(collectionNode);
+                c.validate();
+                return c;
+        }
+    }
+
+    Item parseItem(Json.JObject node) {
+        Item item = objectFactory.createItem(node);
+        if (options.getValidation() != ParseOptions.Validation.NONE) {
+            item.validate();
+        }
+        return item;
     }
 
     private Template parseTemplate(Json.JObject object) throws ParseException {
@@ -116,6 +339,60 @@ public class CollectionParser {
         throw new ParseException("Missing \"template\" property");
     }
 
+    static ParseException malformed(JsonProcessingException e) {
+        return new ParseException(e.getOriginalMessage(), e);
+    }
+
     private static InternalObjectFactory objectFactory = new InternalObjectFactory() {
     };
+
+    private final class ItemIterator implements Iterator<Item> {
+        private final CollectionReader reader;
+        private final Consumer<Collection> header;
+        private Item next;
+        private boolean done;
+
+        private ItemIterator(CollectionReader reader, Consumer<Collection> header) {
+            this.reader = reader;
+            this.header = header;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null && !done) {
+                try {
+                    if (reader.nextItem()) {
+                        next = parseItem(reader.readItem());
+                    }
+                    else {
+                        done = true;
+                        header.accept(parseCollection(reader.getCollection()));
+                    }
+                } catch (JsonProcessingException e) {
+                    throw new UncheckedIOException(malformed(e));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return next != null;
+        }
+
+        @Override
+        public Item next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Item item = next;
+            next = null;
+            return item;
+        }
+
+        private void close() {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
 }
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2012 Erlend Hamnaberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.hamnaberg.json.parser;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import javaslang.control.Option;
+import net.hamnaberg.json.Json;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Pull-style reader over a vnd.collection+json document.
+ * <p>
+ * Collection properties are read into a tree as they are encountered, while the entries of the
+ * {@code items} array are handed out one at a time through {@link #nextItem()}.
+ * Not thread-safe.
+ */
+final class CollectionReader implements Closeable {
+    private enum State {
+        START, COLLECTION, ITEMS, DONE
+    }
+
+    private final JsonParser parser;
+    private final ParseOptions options;
+    private final Map<String, Json.JValue> collection = new LinkedHashMap<>();
+    private State state = State.START;
+
+    /**
+     * @param options sections and item properties not included by the options are skipped.
+     */
+    CollectionReader(JsonParser parser, ParseOptions options) {
+        this.parser = parser;
+        this.options = options;
+    }
+
+    /**
+     * Positions the reader inside the collection object.
+     *
+     * @throws ParseException if the document has no "collection" object.
+     */
+    void open() throws IOException {
+        if (state != State.START) {
+            return;
+        }
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            throw new ParseException("Missing \"collection\" property");
+        }
+        String name;
+        while ((name = parser.nextFieldName()) != null) {
+            JsonToken token = parser.nextToken();
+            if ("collection".equals(name) && token == JsonToken.START_OBJECT) {
+                state = State.COLLECTION;
+                return;
+            }
+            parser.skipChildren();
+        }
+        throw new ParseException("Missing \"collection\" property");
+    }
+
+    /**
+     * Advances to the next item, reading any collection properties on the way.
+     *
+     * @return true if the parser is positioned on the start of an item, false if the document is exhausted.
+     */
+    boolean nextItem() throws IOException {
+        while (true) {
+            switch (state) {
+                case START:
+                    open();
+                    break;
+                case COLLECTION:
+                    readProperty();
+                    break;
+                case ITEMS:
+                    JsonToken token = parser.nextToken();
+                    if (token == JsonToken.START_OBJECT) {
+                        return true;
+                    }
+                    if (token == JsonToken.END_ARRAY) {
+                        state = State.COLLECTION;
+                    }
+                    else {
+                        parser.skipChildren();
+                    }
+                    break;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    Json.JObject readItem() throws IOException {
+        return readItem(parser, options);
+    }
+
+    /**
+     * Reads an item, dropping any data properties which are not included by the options.
+     * The parser is expected to be positioned on the start of the item.
+     */
+    static Json.JObject readItem(JsonParser parser, ParseOptions options) throws IOException {
+        if (options.getItemProperties().isEmpty()) {
+            return TreeReader.readObject(parser);
+        }
+        Set<String> names = options.getItemProperties().get();
+        Map<String, Json.JValue> map = new LinkedHashMap<>();
+        String name;
+        while ((name = parser.nextFieldName()) != null) {
+            JsonToken token = parser.nextToken();
+            if ("data".equals(name) && token == JsonToken.START_ARRAY) {
+                map.put(name, readData(parser, names));
+            }
+            else {
+                map.put(name, TreeReader.readValue(parser));
+            }
+        }
+        return Json.jObject(map);
+    }
+
+    private static Json.JArray readData(JsonParser parser, Set<String> names) throws IOException {
+        List<Json.JValue> list = new ArrayList<>();
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == JsonToken.START_OBJECT) {
+                readProperty(parser, names).forEach(list::add);
+            }
+            else {
+                list.add(TreeReader.readValue(parser));
+            }
+        }
+        return Json.jArray(list);
+    }
+
+    private static Option<Json.JObject> readProperty(JsonParser parser, Set<String> names) throws IOException {
+        Map<String, Json.JValue> map = new LinkedHashMap<>();
+        String field;
+        while ((field = parser.nextFieldName()) != null) {
+            JsonToken token = parser.nextToken();
+            if ("name".equals(field) && (token != JsonToken.VALUE_STRING || !names.contains(parser.getText()))) {
+                skipRemaining(parser);
+                return Option.none();
+            }
+            map.put(field, TreeReader.readValue(parser));
+        }
+        return Option.some(Json.jObject(map));
+    }
+
+    /**
+     * Skips the current item without building it.
+     *
+     * @return the byte offset of the start of the item
+     */
+    long skipItem() throws IOException {
+        long start = parser.getTokenLocation().getByteOffset();
+        parser.skipChildren();
+        return start;
+    }
+
+    /**
+     * The byte offset just after the last token read.
+     */
+    long offset() {
+        return parser.getCurrentLocation().getByteOffset();
+    }
+
+    /**
+     * The collection properties read so far, without the items.
+     */
+    Json.JObject getCollection() {
+        Map<String, Json.JValue> map = new LinkedHashMap<>(collection);
+        map.remove("items");
+        return Json.jObject(map);
+    }
+
+    /**
+     * The collection properties read so far, with the items at the position they had in the document.
+     */
+    Json.JObject getCollection(List<Json.JValue> items) {
+        if (!collection.containsKey("items")) {
+            return Json.jObject(collection);
+        }
+        Map<String, Json.JValue> map = new LinkedHashMap<>(collection);
+        map.put("items", Json.jArray(items));
+        return Json.jObject(map);
+    }
+
+    private void readProperty() throws IOException {
+        String name = parser.nextFieldName();
+        if (name == null) {
+            skipRemaining(parser);
+            state = State.DONE;
+            return;
+        }
+        JsonToken token = parser.nextToken();
+        if (options.skips(name)) {
+            parser.skipChildren();
+        }
+        else if ("items".equals(name) && token == JsonToken.START_ARRAY) {
+            collection.put(name, Json.jEmptyArray());
+            state = State.ITEMS;
+        }
+        else {
+            collection.put(name, TreeReader.readValue(parser));
+        }
+    }
+
+    /**
+     * Skips the current value and the remaining fields of the enclosing object.
+     */
+    private static void skipRemaining(JsonParser parser) throws IOException {
+        parser.skipChildren();
+        while (parser.nextFieldName() != null) {
+            parser.nextToken();
+            parser.skipChildren();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+}
@@ -0,0 +1,350 @@
+/*
+ * Copyright 2012 Erlend Hamnaberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.hamnaberg.json.parser;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import javaslang.control.Option;
+import net.hamnaberg.json.Collection;
+import net.hamnaberg.json.Item;
+import net.hamnaberg.json.Json;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Parses a Collection from chunks of UTF-8 encoded bytes as they arrive, without ever blocking.
+ * <p>
+ * Each chunk is parsed as far as possible when it is fed, and only the state needed to continue
+ * is kept between chunks. If an item callback is given, items are handed to it as soon as they are complete
+ * and are not kept in the resulting collection.
+ * <p>
+ * Create instances with {@link CollectionParser#nonBlocking()}. Not thread-safe;
+ * chunks must be fed by one thread at a time.
+ */
+public final class NonBlockingCollectionParser {
+    private enum State {
+        START, ROOT, COLLECTION, ITEMS, TRAILING, DONE
+    }
+
+    private final CollectionParser collectionParser;
+    private final ParseOptions options;
+    private final Option<Consumer<Item>> itemConsumer;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+    private final Map<String, Json.JValue> collection = new LinkedHashMap<>();
+    private final List<Json.JValue> items = new ArrayList<>();
+    private State state = State.START;
+    private String field;
+    private int skipDepth;
+    private TreeBuilder builder;
+    private byte[] scratch = new byte[0];
+    private boolean completed;
+
+    NonBlockingCollectionParser(CollectionParser collectionParser, JsonFactory factory, ParseOptions options, Option<Consumer<Item>> itemConsumer) throws IOException {
+        this.collectionParser = collectionParser;
+        this.options = options;
+        this.itemConsumer = itemConsumer;
+        this.parser = factory.createNonBlockingByteArrayParser();
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * Parses the remaining bytes of the given chunk. The position of the buffer is moved to its limit.
+     * The buffer may be reused by the caller once this method returns.
+     *
+     * @param chunk the next chunk of the document
+     * @throws IOException if the document is malformed
+     */
+    public void feed(ByteBuffer chunk) throws IOException {
+        if (chunk.hasArray()) {
+            feed(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+        }
+        else {
+            int length = chunk.remaining();
+            if (scratch.length < length) {
+                scratch = new byte[length];
+            }
+            chunk.duplicate().get(scratch, 0, length);
+            feed(scratch, 0, length);
+        }
+        chunk.position(chunk.limit());
+    }
+
+    /**
+     * Parses the given slice of bytes.
+     * The array may be reused by the caller once this method returns.
+     *
+     * @param bytes the next chunk of the document
+     * @param offset index of the first byte to parse
+     * @param length number of bytes to parse
+     * @throws IOException if the document is malformed
+     */
+    public void feed(byte[] bytes, int offset, int length) throws IOException {
+        if (completed) {
+            throw new IllegalStateException("Parser has already been completed");
+        }
+        if (length == 0) {
+            return;
+        }
+        try {
+            feeder.feedInput(bytes, offset, offset + length);
+            drain();
+        } catch (JsonProcessingException e) {
+            throw CollectionParser.malformed(e);
+        }
+    }
+
+    /**
+     * Signals the end of the document.
+     *
+     * @return the parsed collection, without items if they have been handed to an item callback
+     * @throws IOException if the document is malformed, incomplete or does not contain a collection
+     */
+    public Collection complete() throws IOException {
+        if (completed) {
+            throw new IllegalStateException("Parser has already been completed");
+        }
+        completed = true;
+        try (JsonParser p = parser) {
+            feeder.endOfInput();
+            drain();
+        } catch (JsonProcessingException e) {
+            throw CollectionParser.malformed(e);
+        }
+        if (state == State.START || state == State.ROOT) {
+            throw new ParseException("Missing \"collection\" property");
+        }
+        if (state != State.DONE) {
+            throw new ParseException("Unexpected end of input");
+        }
+        if (collection.containsKey("items")) {
+            if (itemConsumer.isDefined()) {
+                collection.remove("items");
+            }
+            else {
+                collection.put("items", Json.jArray(items));
+            }
+        }
+        return collectionParser.parseCollection(Json.jObject(collection));
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            handle(token);
+        }
+    }
+
+    private void handle(JsonToken token) throws IOException {
+        if (skipDepth > 0) {
+            if (token.isStructStart()) {
+                skipDepth++;
+            }
+            else if (token.isStructEnd()) {
+                skipDepth--;
+            }
+            return;
+        }
+        if (builder != null) {
+            if (builder.accept(token, parser)) {
+                completeValue(builder.result);
+                builder = null;
+            }
+            return;
+        }
+        switch (state) {
+            case START:
+                if (token != JsonToken.START_OBJECT) {
+                    throw new ParseException("Missing \"collection\" property");
+                }
+                state = State.ROOT;
+                break;
+            case ROOT:
+                if (token == JsonToken.FIELD_NAME) {
+                    field = parser.getCurrentName();
+                }
+                else if (token == JsonToken.END_OBJECT) {
+                    throw new ParseException("Missing \"collection\" property");
+                }
+                else if ("collection".equals(field) && token == JsonToken.START_OBJECT) {
+                    state = State.COLLECTION;
+                }
+                else {
+                    skip(token);
+                }
+                break;
+            case COLLECTION:
+                if (token == JsonToken.FIELD_NAME) {
+                    field = parser.getCurrentName();
+                }
+                else if (token == JsonToken.END_OBJECT) {
+                    state = State.TRAILING;
+                }
+                else if (options.skips(field)) {
+                    skip(token);
+                }
+                else if ("items".equals(field) && token == JsonToken.START_ARRAY) {
+                    collection.put(field, Json.jEmptyArray());
+                    state = State.ITEMS;
+                }
+                else {
+                    build(token);
+                }
+                break;
+            case ITEMS:
+                if (token == JsonToken.END_ARRAY) {
+                    state = State.COLLECTION;
+                }
+                else if (token == JsonToken.START_OBJECT) {
+                    build(token);
+                }
+                else {
+                    skip(token);
+                }
+                break;
+            case TRAILING:
+                if (token == JsonToken.END_OBJECT) {
+                    state = State.DONE;
+                }
+                else if (token != JsonToken.FIELD_NAME) {
+                    skip(token);
+                }
+                break;
+            default:
+                skip(token);
+                break;
+        }
+    }
+
+    private void skip(JsonToken token) {
+        if (token.isStructStart()) {
+            skipDepth = 1;
+        }
+    }
+
+    private void build(JsonToken token) throws IOException {
+        TreeBuilder b = new TreeBuilder();
+        if (b.accept(token, parser)) {
+            completeValue(b.result);
+        }
+        else {
+            builder = b;
+        }
+    }
+
+    private void completeValue(Json.JValue value) {
+        if (state == State.ITEMS) {
+            Json.JObject item = (Json.JObject) value;
+            if (options.getItemProperties().isDefined()) {
+                item = project(item, options.getItemProperties().get());
+            }
+            if (itemConsumer.isDefined()) {
+                itemConsumer.get().accept(collectionParser.parseItem(item));
+            }
+            else {
+                items.add(item);
+            }
+        }
+        else {
+            collection.put(field, value);
+        }
+    }
+
+    private static Json.JObject project(Json.JObject item, Set<String> names) {
+        return item.getAsArray("data")
+                .map(data -> item.put("data", Json.jArray(data.value.filter(property -> keep(property, names)))))
+                .getOrElse(item);
+    }
+
+    private static boolean keep(Json.JValue property, Set<String> names) {
+        if (!(property instanceof Json.JObject)) {
+            return true;
+        }
+        return ((Json.JObject) property).get("name")
+                .map(name -> name.asString().map(names::contains).getOrElse(false))
+                .getOrElse(true);
+    }
+
+    /**
+     * Builds a tree one token at a time, keeping the containers being built on an explicit stack.
+     */
+    private static final class TreeBuilder {
+        private final Deque<Frame> stack = new ArrayDeque<>();
+        private Json.JValue result;
+
+        /**
+         * @return true if the value is complete.
+         */
+        boolean accept(JsonToken token, JsonParser parser) throws IOException {
+            switch (token) {
+                case FIELD_NAME:
+                    stack.peek().name = parser.getCurrentName();
+                    return false;
+                case START_OBJECT:
+                    stack.push(new Frame(new LinkedHashMap<>(), null));
+                    return false;
+                case START_ARRAY:
+                    stack.push(new Frame(null, new ArrayList<>()));
+                    return false;
+                case END_OBJECT:
+                    return add(Json.jObject(stack.pop().map));
+                case END_ARRAY:
+                    return add(Json.jArray(stack.pop().list));
+                default:
+                    return add(TreeReader.readScalar(parser));
+            }
+        }
+
+        private boolean add(Json.JValue value) {
+            Frame parent = stack.peek();
+            if (parent == null) {
+                result = value;
+                return true;
+            }
+            if (parent.map != null) {
+                parent.map.put(parent.name, value);
+            }
+            else {
+                parent.list.add(value);
+            }
+            return false;
+        }
+    }
+
+    private static final class Frame {
+        private final Map<String, Json.JValue> map;
+        private final List<Json.JValue> list;
+        private String name;
+
+        private Frame(Map<String, Json.JValue> map, List<Json.JValue> list) {
+            this.map = map;
+            this.list = list;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2012 Erlend Hamnaberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.hamnaberg.json.parser;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import net.hamnaberg.json.Json;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Parses the items of a collection in parallel.
+ * <p>
+ * A first sequential pass reads the collection properties and skips over the items, recording where each
+ * of them starts and ends. The items are then parsed from their own slice of the source on a {@link ForkJoinPool}
+ * and put back in document order.
+ */
+final class ParallelItemParser {
+    private final JsonFactory factory;
+    private final ForkJoinPool pool;
+    private final ParseOptions options;
+
+    ParallelItemParser(JsonFactory factory, ForkJoinPool pool, ParseOptions options) {
+        this.factory = factory;
+        this.pool = pool;
+        this.options = options;
+    }
+
+    Json.JObject parse(ByteSource source) throws IOException {
+        try (CollectionReader reader = new CollectionReader(source.createParser(factory), options)) {
+            long[] starts = new long[16];
+            long[] ends = new long[16];
+            int count = 0;
+            while (reader.nextItem()) {
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, count * 2);
+                    ends = Arrays.copyOf(ends, count * 2);
+                }
+                starts[count] = reader.skipItem();
+                ends[count] = reader.offset();
+                count++;
+            }
+            Json.JValue[] items = new Json.JValue[count];
+            int threshold = Math.max(1, count / (pool.getParallelism() * 4));
+            try {
+                pool.invoke(new ParseItems(source, starts, ends, items, 0, count, threshold));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            return reader.getCollection(Arrays.asList(items));
+        }
+    }
+
+    private final class ParseItems extends RecursiveAction {
+        private final ByteSource source;
+        private final long[] starts;
+        private final long[] ends;
+        private final Json.JValue[] items;
+        private final int from;
+        private final int to;
+        private final int threshold;
+
+        private ParseItems(ByteSource source, long[] starts, long[] ends, Json.JValue[] items, int from, int to, int threshold) {
+            this.source = source;
+            this.starts = starts;
+            this.ends = ends;
+            this.items = items;
+            this.from = from;
+            this.to = to;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= threshold) {
+                for (int i = from; i < to; i++) {
+                    items[i] = parseItem(i);
+                }
+            }
+            else {
+                int middle = (from + to) >>> 1;
+                invokeAll(
+                        new ParseItems(source, starts, ends, items, from, middle, threshold),
+                        new ParseItems(source, starts, ends, items, middle, to, threshold)
+                );
+            }
+        }
+
+        private Json.JValue parseItem(int index) {
+            try (JsonParser parser = source.createParser(factory, starts[index], ends[index] - starts[index])) {
+                parser.nextToken();
+                return CollectionReader.readItem(parser, options);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,183 @@
+/*
+ * Copyright 2012 Erlend Hamnaberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.hamnaberg.json.parser;
+
+import javaslang.control.Option;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Immutable options for a {@link CollectionParser}.
+ */
+public final class ParseOptions {
+    public static final ParseOptions DEFAULT = new ParseOptions(
+            Option.none(), Validation.EAGER, Collections.unmodifiableSet(EnumSet.allOf(Section.class)), Option.none()
+    );
+
+    /**
+     * When the parsed collection is validated.
+     */
+    public enum Validation {
+        /**
+         * The collection is never validated.
+         */
+        NONE,
+        /**
+         * Each section of the collection is validated the first time it is accessed.
+         * Streamed items are validated as they are handed out.
+         */
+        LAZY,
+        /**
+         * The whole collection is validated before it is returned from the parser.
+         */
+        EAGER
+    }
+
+    /**
+     * The top-level sections of a collection which can be left out when parsing.
+     * The version, href and any extension properties are always kept.
+     */
+    public enum Section {
+        LINKS("links"),
+        ITEMS("items"),
+        QUERIES("queries"),
+        TEMPLATE("template"),
+        ERROR("error");
+
+        private final String name;
+
+        Section(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        static Option<Section> fromName(String name) {
+            for (Section section : values()) {
+                if (section.name.equals(name)) {
+                    return Option.some(section);
+                }
+            }
+            return Option.none();
+        }
+    }
+
+    private final Option<ForkJoinPool> pool;
+    private final Validation validation;
+    private final Set<Section> sections;
+    private final Option<Set<String>> itemProperties;
+
+    private ParseOptions(Option<ForkJoinPool> pool, Validation validation, Set<Section> sections, Option<Set<String>> itemProperties) {
+        this.pool = pool;
+        this.validation = validation;
+        this.sections = sections;
+        this.itemProperties = itemProperties;
+    }
+
+    public Option<ForkJoinPool> getPool() {
+        return pool;
+    }
+
+    public Validation getValidation() {
+        return validation;
+    }
+
+    public Set<Section> getSections() {
+        return sections;
+    }
+
+    public Option<Set<String>> getItemProperties() {
+        return itemProperties;
+    }
+
+    /**
+     * @param validation when to validate parsed collections
+     * @return a new copy of the options
+     */
+    public ParseOptions withValidation(Validation validation) {
+        return new ParseOptions(pool, Option.of(validation).getOrElseThrow(() -> new IllegalArgumentException("Validation may not be null")), sections, itemProperties);
+    }
+
+    /**
+     * Parses the items of in-memory and file based documents in parallel on the given pool.
+     * <p>
+     * The document is first scanned to find the boundaries of each item, then the items
+     * are parsed in parallel and reassembled in document order.
+     * Readers and streams are always parsed sequentially.
+     *
+     * @param pool the pool to parse items on
+     * @return a new copy of the options
+     */
+    public ParseOptions withParallelism(ForkJoinPool pool) {
+        return new ParseOptions(Option.of(pool), validation, sections, itemProperties);
+    }
+
+    /**
+     * Parses items in parallel on the {@link ForkJoinPool#commonPool() common pool}.
+     *
+     * @return a new copy of the options
+     * @see #withParallelism(ForkJoinPool)
+     */
+    public ParseOptions withParallelism() {
+        return withParallelism(ForkJoinPool.commonPool());
+    }
+
+    public ParseOptions sequential() {
+        return new ParseOptions(Option.none(), validation, sections, itemProperties);
+    }
+
+    /**
+     * Only decodes the given sections. The other sections are skipped without being built,
+     * and are reported as absent by the parsed collection.
+     *
+     * @return a new copy of the options
+     */
+    public ParseOptions withSections(Section first, Section... rest) {
+        return new ParseOptions(pool, validation, Collections.unmodifiableSet(EnumSet.of(first, rest)), itemProperties);
+    }
+
+    /**
+     * Only keeps item data properties with the given names. Other properties are skipped
+     * as soon as their name has been read.
+     *
+     * @return a new copy of the options
+     */
+    public ParseOptions withItemProperties(String... names) {
+        Set<String> set = new LinkedHashSet<>(Arrays.asList(names));
+        return new ParseOptions(pool, validation, sections, Option.some(Collections.unmodifiableSet(set)));
+    }
+
+    /**
+     * Decodes all item data properties.
+     *
+     * @return a new copy of the options
+     */
+    public ParseOptions withAllItemProperties() {
+        return new ParseOptions(pool, validation, sections, Option.none());
+    }
+
+    boolean skips(String name) {
+        return Section.fromName(name).map(section -> !sections.contains(section)).getOrElse(false);
+    }
+}
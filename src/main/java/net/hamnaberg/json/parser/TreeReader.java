@@ -0,0 +1,116 @@
+/*
+ * Copyright 2012 Erlend Hamnaberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.hamnaberg.json.parser;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import net.hamnaberg.json.Json;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds {@link Json.JValue} trees from a Jackson token stream.
+ * <p>
+ * The parser is expected to be positioned on the first token of the value to read.
+ * Integers which fit in a long are read without going through the text of the number,
+ * and small ones share the same node.
+ */
+final class TreeReader {
+    private static final int CACHE_LOW = -128;
+    private static final int CACHE_HIGH = 1024;
+    private static final Json.JNumber[] NUMBERS = new Json.JNumber[CACHE_HIGH - CACHE_LOW + 1];
+
+    static {
+        for (int i = 0; i < NUMBERS.length; i++) {
+            NUMBERS[i] = Json.jNumber(BigDecimal.valueOf(i + CACHE_LOW));
+        }
+    }
+
+    private TreeReader() {
+    }
+
+    static Json.JValue readRoot(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            throw new ParseException("Nothing parsed...");
+        }
+        return readValue(parser);
+    }
+
+    static Json.JValue readValue(JsonParser parser) throws IOException {
+        JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.START_OBJECT) {
+            return readObject(parser);
+        }
+        if (token == JsonToken.START_ARRAY) {
+            return readArray(parser);
+        }
+        return readScalar(parser);
+    }
+
+    static Json.JObject readObject(JsonParser parser) throws IOException {
+        Map<String, Json.JValue> map = new LinkedHashMap<>();
+        String name;
+        while ((name = parser.nextFieldName()) != null) {
+            parser.nextToken();
+            map.put(name, readValue(parser));
+        }
+        return Json.jObject(map);
+    }
+
+    static Json.JArray readArray(JsonParser parser) throws IOException {
+        List<Json.JValue> list = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            list.add(readValue(parser));
+        }
+        return Json.jArray(list);
+    }
+
+    static Json.JValue readScalar(JsonParser parser) throws IOException {
+        JsonToken token = parser.getCurrentToken();
+        if (token == JsonToken.VALUE_STRING) {
+            return Json.jString(parser.getText());
+        }
+        if (token == JsonToken.VALUE_NUMBER_INT) {
+            return readInteger(parser);
+        }
+        if (token.isNumeric()) {
+            return Json.jNumber(parser.getDecimalValue());
+        }
+        if (token.isBoolean()) {
+            return Json.jBoolean(parser.getBooleanValue());
+        }
+        return Json.jNull();
+    }
+
+    private static Json.JNumber readInteger(JsonParser parser) throws IOException {
+        JsonParser.NumberType type = parser.getNumberType();
+        if (type == JsonParser.NumberType.BIG_INTEGER) {
+            return Json.jNumber(parser.getDecimalValue());
+        }
+        long value = parser.getLongValue();
+        if (value >= CACHE_LOW && value <= CACHE_HIGH) {
+            return NUMBERS[(int) value - CACHE_LOW];
+        }
+        return Json.jNumber(BigDecimal.valueOf(value));
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright 2012 Erlend Hamnaberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.hamnaberg.json.reactive;
+
+import net.hamnaberg.json.Collection;
+import net.hamnaberg.json.Item;
+import net.hamnaberg.json.generator.CollectionWriter;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes a collection as UTF-8 encoded chunks, with the items taken from a publisher.
+ * <p>
+ * The output is the same as {@link CollectionWriter} gives for the header with the published items.
+ * Each item is written in its own chunk, and items are only requested
+ * from upstream to cover the outstanding demand for chunks.
+ * <p>
+ * Each subscriber gets its own subscription to the items.
+ */
+public final class CollectionPublisher implements Publisher<ByteBuffer> {
+    private final Collection header;
+    private final Publisher<Item> items;
+
+    public CollectionPublisher(Collection header, Publisher<Item> items) {
+        this.header = header;
+        this.items = items;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super ByteBuffer> subscriber) {
+        WriteSubscription subscription = new WriteSubscription(subscriber);
+        try {
+            subscription.writer = new CollectionWriter(subscription.buffer, header);
+        } catch (IOException e) {
+            subscriber.onSubscribe(Demand.EMPTY);
+            subscriber.onError(e);
+            return;
+        }
+        subscriber.onSubscribe(subscription);
+        items.subscribe(subscription);
+    }
+
+    private static final class WriteSubscription implements Subscription, Subscriber<Item> {
+        private final Subscriber<? super ByteBuffer> downstream;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private CollectionWriter writer;
+        private final Queue<Item> received = new ConcurrentLinkedQueue<>();
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private volatile Subscription upstream;
+        private volatile boolean upstreamDone;
+        private volatile Throwable error;
+        private volatile boolean cancelled;
+        private long pending;
+        private boolean done;
+
+        private WriteSubscription(Subscriber<? super ByteBuffer> downstream) {
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("Requested chunks must be positive, was " + n);
+            }
+            else {
+                Demand.add(requested, n);
+            }
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            drain();
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            if (upstream != null) {
+                subscription.cancel();
+                return;
+            }
+            upstream = subscription;
+            drain();
+        }
+
+        @Override
+        public void onNext(Item item) {
+            received.offer(item);
+            drain();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            drain();
+        }
+
+        @Override
+        public void onComplete() {
+            upstreamDone = true;
+            drain();
+        }
+
+        private void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+            int missed = 1;
+            do {
+                emit();
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void emit() {
+            if (done) {
+                return;
+            }
+            if (cancelled || error != null) {
+                done = true;
+                received.clear();
+                if (upstream != null) {
+                    upstream.cancel();
+                }
+                if (!cancelled) {
+                    downstream.onError(error);
+                }
+                return;
+            }
+            long r = requested.get();
+            long emitted = 0;
+            Item item;
+            try {
+                while (emitted != r && (item = received.poll()) != null) {
+                    writer.write(item);
+                    downstream.onNext(chunk());
+                    if (pending != Long.MAX_VALUE) {
+                        pending--;
+                    }
+                    emitted++;
+                }
+                if (emitted != r && upstreamDone && received.isEmpty()) {
+                    writer.finish();
+                    downstream.onNext(chunk());
+                    done = true;
+                    downstream.onComplete();
+                    return;
+                }
+            } catch (IOException e) {
+                error = e;
+                emit();
+                return;
+            }
+            Demand.produced(requested, emitted);
+            long remaining = requested.get();
+            if (upstream != null && !upstreamDone && remaining > pending) {
+                upstream.request(remaining == Long.MAX_VALUE ? Long.MAX_VALUE : remaining - pending);
+                pending = remaining;
+            }
+        }
+
+        private ByteBuffer chunk() throws IOException {
+            writer.flush();
+            ByteBuffer chunk = ByteBuffer.wrap(buffer.toByteArray());
+            buffer.reset();
+            return chunk;
+        }
+    }
+}
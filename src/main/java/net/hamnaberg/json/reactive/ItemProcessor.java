@@ -0,0 +1,202 @@
+/*
+ * Copyright 2012 Erlend Hamnaberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.hamnaberg.json.reactive;
+
+import net.hamnaberg.json.Collection;
+import net.hamnaberg.json.Item;
+import net.hamnaberg.json.parser.CollectionParser;
+import net.hamnaberg.json.parser.NonBlockingCollectionParser;
+import org.reactivestreams.Processor;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Parses chunks of a UTF-8 encoded collection into its items.
+ * <p>
+ * A chunk is only requested from upstream when all items parsed so far have been delivered
+ * and the subscriber has outstanding demand, so at most the items of a single chunk are buffered.
+ * Once the whole document has been parsed, the rest of the collection is passed to the {@code header}
+ * callback, without any items, before the subscriber is completed.
+ * <p>
+ * Supports a single subscriber.
+ */
+public final class ItemProcessor implements Processor<ByteBuffer, Item> {
+    private final CollectionParser parser;
+    private final Consumer<Collection> header;
+    private final Queue<ByteBuffer> chunks = new ConcurrentLinkedQueue<>();
+    private final Queue<Item> items = new ArrayDeque<>();
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger wip = new AtomicInteger();
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+    private volatile Subscription upstream;
+    private volatile Subscriber<? super Item> downstream;
+    private volatile boolean upstreamDone;
+    private volatile Throwable error;
+    private volatile Throwable invalidRequest;
+    private volatile boolean cancelled;
+    private NonBlockingCollectionParser chunkParser;
+    private boolean chunkRequested;
+    private boolean parsed;
+    private boolean done;
+
+    public ItemProcessor(CollectionParser parser, Consumer<Collection> header) {
+        this.parser = parser;
+        this.header = header;
+    }
+
+    @Override
+    public void subscribe(Subscriber<? super Item> subscriber) {
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(Demand.EMPTY);
+            subscriber.onError(new IllegalStateException("ItemProcessor only supports a single subscriber"));
+            return;
+        }
+        subscriber.onSubscribe(new Subscription() {
+            @Override
+            public void request(long n) {
+                if (n <= 0) {
+                    invalidRequest = new IllegalArgumentException("Requested items must be positive, was " + n);
+                }
+                else {
+                    Demand.add(requested, n);
+                }
+                drain();
+            }
+
+            @Override
+            public void cancel() {
+                cancelled = true;
+                drain();
+            }
+        });
+        downstream = subscriber;
+        drain();
+    }
+
+    @Override
+    public void onSubscribe(Subscription subscription) {
+        if (upstream != null) {
+            subscription.cancel();
+            return;
+        }
+        upstream = subscription;
+        drain();
+    }
+
+    @Override
+    public void onNext(ByteBuffer chunk) {
+        chunks.offer(chunk);
+        drain();
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        error = throwable;
+        upstreamDone = true;
+        drain();
+    }
+
+    @Override
+    public void onComplete() {
+        upstreamDone = true;
+        drain();
+    }
+
+    private void drain() {
+        if (wip.getAndIncrement() != 0) {
+            return;
+        }
+        int missed = 1;
+        do {
+            if (downstream != null && upstream != null) {
+                emit(downstream);
+            }
+            missed = wip.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void emit(Subscriber<? super Item> subscriber) {
+        while (!done) {
+            if (cancelled || invalidRequest != null) {
+                done = true;
+                upstream.cancel();
+                chunks.clear();
+                items.clear();
+                if (!cancelled) {
+                    subscriber.onError(invalidRequest);
+                }
+                return;
+            }
+            long emitted = 0;
+            long r = requested.get();
+            while (emitted != r && !items.isEmpty()) {
+                subscriber.onNext(items.poll());
+                emitted++;
+            }
+            Demand.produced(requested, emitted);
+            if (!items.isEmpty()) {
+                return;
+            }
+            if (parsed) {
+                done = true;
+                subscriber.onComplete();
+                return;
+            }
+            try {
+                if (chunkParser == null) {
+                    chunkParser = parser.nonBlocking(items::add);
+                }
+                ByteBuffer chunk = chunks.poll();
+                if (chunk != null) {
+                    chunkRequested = false;
+                    chunkParser.feed(chunk);
+                    continue;
+                }
+                if (error != null) {
+                    done = true;
+                    upstream.cancel();
+                    subscriber.onError(error);
+                    return;
+                }
+                if (upstreamDone) {
+                    parsed = true;
+                    header.accept(chunkParser.complete());
+                    continue;
+                }
+            } catch (Exception e) {
+                done = true;
+                upstream.cancel();
+                subscriber.onError(e);
+                return;
+            }
+            if (requested.get() > 0 && !chunkRequested) {
+                chunkRequested = true;
+                upstream.request(1);
+            }
+            return;
+        }
+    }
+}
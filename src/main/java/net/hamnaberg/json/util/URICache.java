@@ -0,0 +1,91 @@
+/*
+ * Copyright 2012 Erlend Hamnaberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.hamnaberg.json.util;
+
+import java.net.URI;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Optional bounded cache of parsed hrefs, for documents where the same URIs are repeated many times.
+ * <p>
+ * The cache is disabled by default, in which case {@link #create(String)} is the same as {@link URI#create(String)}.
+ * When enabled, the least recently used hrefs are evicted once the maximum size is reached.
+ * <p>
+ * The cache is shared by the whole JVM, so it is owned by the application and not by any library using this one.
+ * The application should enable it once at startup; the first call to {@link #enable(int)} wins and later calls
+ * leave the existing cache in place.
+ */
+public final class URICache {
+    private static final AtomicReference<Map<String, URI>> cache = new AtomicReference<>();
+
+    private URICache() {
+    }
+
+    /**
+     * Enables the cache, unless it is already enabled.
+     *
+     * @param maximumSize the maximum number of hrefs to keep
+     * @return true if this call enabled the cache, false if it was already enabled
+     */
+    public static boolean enable(int maximumSize) {
+        if (maximumSize <= 0) {
+            throw new IllegalArgumentException("Maximum size must be positive, was " + maximumSize);
+        }
+        return cache.compareAndSet(null, new LinkedHashMap<String, URI>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, URI> eldest) {
+                return size() > maximumSize;
+            }
+        });
+    }
+
+    /**
+     * Disables the cache. Only meant to be called by the owner which enabled it.
+     */
+    public static void disable() {
+        cache.set(null);
+    }
+
+    public static boolean isEnabled() {
+        return cache.get() != null;
+    }
+
+    /**
+     * Parses the href, or gives the cached URI for it.
+     *
+     * @throws IllegalArgumentException if the href is not a valid URI
+     */
+    public static URI create(String href) {
+        Map<String, URI> current = cache.get();
+        if (current == null) {
+            return URI.create(href);
+        }
+        synchronized (current) {
+            URI uri = current.get(href);
+            if (uri != null) {
+                return uri;
+            }
+        }
+        URI uri = URI.create(href);
+        synchronized (current) {
+            current.put(href, uri);
+        }
+        return uri;
+    }
+}
@@ -15,4 +15,41 @@ public class DataContainerTest {
         assertNotSame(template, replaced);
         assertEquals(replacedFooProperty, replaced.getDataAsMap().get("foo"));
     }
+
+    @Test
+    public void lookupByNameAndIndex() throws Exception {
+        Property first = Property.value("foo", Value.of("first"));
+        Template template = Template.create(Arrays.asList(first, Property.template("bar"), Property.value("foo", Value.of("second"))));
+        Data data = template.getData();
+        assertSame(data, template.getData());
+        assertEquals(first, data.propertyByName("foo").get());
+        assertEquals(first, template.getDataAsMap().get("foo"));
+        assertEquals(2, template.getDataAsMap().size());
+        assertEquals("bar", data.get(1).get().getName());
+        assertFalse(data.get(3).isDefined());
+        assertFalse(data.get(-1).isDefined());
+        assertEquals(3, data.size());
+    }
+
+    @Test
+    public void typedAccessors() throws Exception {
+        Template template = Template.create(Arrays.asList(
+                Property.value("id", Value.of(42)),
+                Property.value("ratio", Value.of(new java.math.BigDecimal("0.25"))),
+                Property.value("active", Value.of(true)),
+                Property.value("name", Value.of("foo")),
+                Property.array("tags", Arrays.asList(Value.of("a"), Value.of(1), Value.NULL)),
+                Property.template("empty")
+        ));
+        assertEquals(42L, template.getLong("id", -1));
+        assertEquals(-1L, template.getLong("name", -1));
+        assertEquals(-1L, template.getLong("missing", -1));
+        assertEquals(0.25, template.getDouble("ratio", 0), 0);
+        assertTrue(template.getBoolean("active", false));
+        assertFalse(template.getBoolean("empty", false));
+        assertEquals("foo", template.getString("name", null));
+        assertNull(template.getString("id", null));
+        assertArrayEquals(new String[]{"a"}, template.getStringArray("tags"));
+        assertEquals(0, template.getStringArray("name").length);
+    }
 }
@@ -3,13 +3,22 @@ package net.hamnaberg.json;
 import java.util.Optional;
 
 import javaslang.control.Option;
+import net.hamnaberg.json.util.URICache;
 import org.junit.Test;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import static org.hamcrest.CoreMatchers.*;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 
 public class QueriesTest {
 
@@ -22,4 +31,111 @@ public class QueriesTest {
         assertThat(URI.create("http://example.com?q=faff"), equalTo(filter.expand(Collections.singletonList(Property.value("q", Value.of("faff"))))));
 
     }
+
+    @Test
+    public void lookupByRelToken() throws Exception {
+        URI base = URI.create("http://example.com/");
+        Link first = Link.create(base.resolve("1"), "item next", Option.none(), Option.of("one"));
+        Link second = Link.create(base.resolve("2"), "next");
+        Link third = Link.create(base.resolve("3"), "prev", Option.none(), Option.of("one"));
+        Collection collection = Collection.builder(base).addLink(first).addLink(second).addLink(third).build();
+
+        assertThat(collection.linksByRel("next"), equalTo(Arrays.asList(first, second)));
+        assertThat(collection.linkByRel("item next"), equalTo(Option.of(first)));
+        assertThat(collection.linkByRel("item"), equalTo(Option.of(first)));
+        assertThat(collection.linkByName("one"), equalTo(Option.of(first)));
+        assertThat(collection.linkByRelAndName("prev", "one"), equalTo(Option.of(third)));
+
+        Link repeated = Link.create(base.resolve("4"), "next next");
+        Collection withRepeated = Collection.builder(base).addLink(repeated).addLink(second).build();
+        assertThat(withRepeated.linksByRel("next"), equalTo(Arrays.asList(repeated, second)));
+        assertThat(withRepeated.linksByRel("next next"), equalTo(Collections.singletonList(repeated)));
+        assertThat(collection.linkByRelAndName("next", null), equalTo(Option.of(second)));
+        assertThat(collection.linkByRel("missing"), equalTo(Option.<Link>none()));
+    }
+
+    @Test
+    public void hrefsAreParsedOnce() throws Exception {
+        Query query = Query.create(new URITemplateTarget("http://example.com{?q}"), "filter", Option.none(), Collections.singletonList(Property.template("q")));
+        assertSame(query.getHref(), query.getHref());
+
+        assertTrue(URICache.enable(16));
+        try {
+            assertFalse(URICache.enable(1));
+            Link first = Link.create(URI.create("http://example.com/"), "self");
+            Link second = Link.create(URI.create("http://example.com/"), "alternate");
+            assertSame(first.getHref(), first.getHref());
+            assertSame(first.getHref(), second.getHref());
+        } finally {
+            URICache.disable();
+        }
+    }
+
+    @Test
+    public void expandAll() throws Exception {
+        Query template = Query.create(new URITemplateTarget("http://example.com/{id}{?q}"), "search", Option.none(), Collections.singletonList(Property.template("q")));
+        Query plain = Query.create(URI.create("http://example.com/search?a=b"), "search", Option.none(), Collections.singletonList(Property.template("q")));
+        List<List<Property>> inputs = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            inputs.add(Arrays.asList(Property.value("id", Value.of(i)), Property.value("q", Value.of("x " + i))));
+        }
+        char[] large = new char[4096];
+        Arrays.fill(large, 'y');
+        inputs.add(100, Arrays.asList(Property.value("id", Value.of(-1)), Property.value("q", Value.of(new String(large)))));
+        for (Query query : Arrays.asList(template, plain)) {
+            List<URI> expected = inputs.stream().map(query::expand).collect(Collectors.toList());
+            assertThat(query.expandAll(inputs.stream()).collect(Collectors.toList()), equalTo(expected));
+            assertThat(query.expander().expandAll(inputs.parallelStream()).collect(Collectors.toList()), equalTo(expected));
+            assertThat(query.expander().expandAll(inputs.parallelStream()).count(), equalTo((long) inputs.size()));
+            assertThat(query.expander().expand(), equalTo(query.expand()));
+        }
+    }
+
+    @Test
+    public void routeRejectsAmbiguousUrisWithoutBacktracking() throws Exception {
+        Query query = Query.create(new URITemplateTarget("http://x/{a}-{b}-{c}-{d}/end"), "dashes", Option.none(), Collections.<Property>emptyList());
+        QueryRouter router = QueryRouter.of(Collections.singletonList(query));
+
+        QueryRouter.Match match = router.route(URI.create("http://x/a-b-c-d/end")).get();
+        assertThat(match.getProperties(), equalTo(Arrays.asList(
+                Property.value("a", Value.of("a")), Property.value("b", Value.of("b")),
+                Property.value("c", Value.of("c")), Property.value("d", Value.of("d"))
+        )));
+
+        char[] dashes = new char[2000];
+        Arrays.fill(dashes, '-');
+        long start = System.nanoTime();
+        assertThat(router.route(URI.create("http://x/" + new String(dashes) + "/nope")), equalTo(Option.<QueryRouter.Match>none()));
+        assertTrue("Routing took too long", System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+    }
+
+    @Test
+    public void routeExpandedQueries() throws Exception {
+        Query item = Query.create(new URITemplateTarget("http://example.com/items/{id}{?q,tag}"), "item", Option.none(), Collections.<Property>emptyList());
+        Query children = Query.create(new URITemplateTarget("http://example.com/items/{id}/children"), "children", Option.none(), Collections.<Property>emptyList());
+        Query files = Query.create(new URITemplateTarget("http://example.com/files{/path}{+rest}"), "files", Option.none(), Collections.<Property>emptyList());
+        Query search = Query.create(URI.create("http://example.com/search?type=full"), "search", Option.none(), Arrays.asList(Property.template("q"), Property.template("page")));
+        QueryRouter router = QueryRouter.of(Arrays.asList(item, children, files, search));
+
+        List<Property> itemProperties = Arrays.asList(Property.value("id", Value.of("a b")), Property.value("q", Value.of("x/y")));
+        QueryRouter.Match match = router.route(item.expand(itemProperties)).get();
+        assertSame(item, match.getQuery());
+        assertThat(match.getProperties(), equalTo(itemProperties));
+
+        match = router.route(children.expand(Collections.singletonList(Property.value("id", Value.of("42"))))).get();
+        assertSame(children, match.getQuery());
+        assertThat(match.getProperties(), equalTo(Collections.singletonList(Property.value("id", Value.of("42")))));
+
+        match = router.route(URI.create("http://example.com/files/docs/a/b.txt")).get();
+        assertSame(files, match.getQuery());
+        assertThat(match.getProperties(), equalTo(Arrays.asList(Property.value("path", Value.of("docs")), Property.value("rest", Value.of("/a/b.txt")))));
+
+        List<Property> searchProperties = Arrays.asList(Property.value("q", Value.of("a b&c")), Property.array("page", Arrays.asList(Value.of("1"), Value.of("2"))));
+        match = router.route(search.expand(searchProperties)).get();
+        assertSame(search, match.getQuery());
+        assertThat(match.getProperties(), equalTo(searchProperties));
+
+        assertThat(router.route(URI.create("http://example.com/search?q=a")), equalTo(Option.<QueryRouter.Match>none()));
+        assertThat(router.route(URI.create("http://example.com/other")), equalTo(Option.<QueryRouter.Match>none()));
+    }
 }
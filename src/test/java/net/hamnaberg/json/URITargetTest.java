@@ -85,4 +85,23 @@ public class URITargetTest {
         assertEquals("Incorrect Query", expected, expanded.getQuery());
         assertEquals(URI.create("http://example.com/foo?" + expected), expanded);
     }
+
+    @Test
+    public void encodesAsURLEncoder() throws Exception {
+        String[] values = {"", "plain", "a b+c&d=e", "Humle/Dumle", "æøå", "\u20ac", "\uD83D\uDE00", "\uD83D", "x\uDE00y", "~!'()*._-"};
+        for (String value : values) {
+            StringBuilder sb = new StringBuilder();
+            URITarget.encode(sb, value);
+            assertEquals(value, java.net.URLEncoder.encode(value, "UTF-8"), sb.toString());
+        }
+    }
+
+    @Test
+    public void expandKeepsExistingQueryWithoutProperties() {
+        URITarget target = new URITarget(URI.create("http://example.com/foo?baa=foo"));
+        URI expanded = target.expand(Arrays.asList(Property.template("empty"), Property.value("n", Value.NULL)));
+        assertEquals(URI.create("http://example.com/foo?baa=foo"), expanded);
+        expanded = target.expand(Arrays.asList(Property.array("n", Arrays.asList(Value.of(1), Value.NULL, Value.of(true)))));
+        assertEquals(URI.create("http://example.com/foo?baa=foo&n=1&n=null&n=true"), expanded);
+    }
 }
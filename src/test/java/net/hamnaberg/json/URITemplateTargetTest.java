@@ -4,7 +4,10 @@ import org.junit.Test;
 
 import java.net.URI;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.Assert.assertEquals;
 
@@ -28,4 +31,24 @@ public class URITemplateTargetTest {
         URI expanded = target.expand(properties);
         assertEquals("Incorrect Query", expected, expanded.toString());
     }
+
+    @Test
+    public void sharedTemplateDoesNotKeepVariables() {
+        URITemplateTarget first = new URITemplateTarget("http://example.com/{foo}");
+        URITemplateTarget second = new URITemplateTarget("http://example.com/{foo}");
+        assertEquals("http://example.com/1", first.expand(Arrays.asList(Property.value("foo", Value.of(1)))).toString());
+        assertEquals("http://example.com/2", second.expand(Arrays.asList(Property.value("foo", Value.of(2)))).toString());
+        assertEquals("http://example.com/", first.toURI().toString());
+    }
+
+    @Test
+    public void expandsConcurrently() throws Exception {
+        URITemplateTarget target = new URITemplateTarget("http://example.com/{foo}{?bar}");
+        List<Integer> mismatches = IntStream.range(0, 2000).parallel()
+                .filter(i -> !target.expand(Arrays.asList(Property.value("foo", Value.of(i)), Property.value("bar", Value.of("b" + i))))
+                        .toString().equals("http://example.com/" + i + "?bar=b" + i))
+                .boxed()
+                .collect(Collectors.toList());
+        assertEquals(Collections.emptyList(), mismatches);
+    }
 }
@@ -0,0 +1,53 @@
+package net.hamnaberg.json;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+
+public class ValueTest {
+    @Test
+    public void numbersKeepTheirBigDecimalRepresentation() throws Exception {
+        assertEquals(new BigDecimal(42), number(Value.of(42)).getValue());
+        assertEquals(new BigDecimal(1L << 40), number(Value.of(1L << 40)).getValue());
+        assertEquals(new BigDecimal(3.0), number(Value.of(3.0)).getValue());
+        assertEquals(new BigDecimal(0.1), number(Value.of(0.1)).getValue());
+        assertEquals(new BigDecimal("1.50"), number(Value.of(new BigDecimal("1.50"))).getValue());
+        assertEquals(Json.jNumber(new BigDecimal(7)), Value.of(7).asJson());
+        assertEquals(Json.jNumber(new BigDecimal(1L << 40)), Value.of(1L << 40).asJson());
+        assertEquals("1099511627776", Value.of(1L << 40).asString());
+        assertEquals("1.50", Value.of(new BigDecimal("1.50")).asString());
+    }
+
+    @Test
+    public void smallIntegersAreCached() throws Exception {
+        assertSame(Value.of(7), Value.of(7L));
+        assertSame(Value.of(7), Value.of(new BigDecimal("7")));
+        assertSame(Value.of(-128), Value.of(-128.0));
+    }
+
+    @Test
+    public void primitiveAccessors() throws Exception {
+        assertEquals(1L << 40, number(Value.of(1L << 40)).asLong());
+        assertEquals(2, number(Value.of(new BigDecimal("2.75"))).asInt());
+        assertEquals(2.75, number(Value.of(new BigDecimal("2.75"))).asDouble(), 0);
+        assertEquals(5000.0, number(Value.of(5000)).asDouble(), 0);
+    }
+
+    @Test
+    public void longAndDecimalValuesAreEqual() throws Exception {
+        assertEquals(Value.of(1L << 40), Value.of(new BigDecimal(1L << 40)));
+        assertEquals(Value.of(new BigDecimal(1L << 40)), Value.of(1L << 40));
+        assertEquals(Value.of(1L << 40).hashCode(), Value.of(new BigDecimal(1L << 40)).hashCode());
+        assertEquals(new Value.NumberValue(new BigDecimal(1L << 40)).hashCode(), Value.of(1L << 40).hashCode());
+        assertNotEquals(Value.of(1), Value.of(new BigDecimal("1.0")));
+        assertEquals(new BigDecimal(1L << 40), Value.of(1L << 40).fold(b -> null, s -> null, n -> n.value, () -> null));
+    }
+
+    private static Value.NumberValue number(Value value) {
+        return (Value.NumberValue) value;
+    }
+}
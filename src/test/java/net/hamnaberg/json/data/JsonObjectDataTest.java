@@ -0,0 +1,78 @@
+/*
+ * Copyright 2012 Erlend Hamnaberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.hamnaberg.json.data;
+
+import javaslang.control.Option;
+import net.hamnaberg.json.Data;
+import net.hamnaberg.json.Item;
+import net.hamnaberg.json.Json;
+import net.hamnaberg.json.Property;
+import net.hamnaberg.json.Value;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class JsonObjectDataTest {
+    @Test
+    public void convertsBothWays() throws Exception {
+        Map<String, Value> object = new LinkedHashMap<>();
+        object.put("x", Value.of(1));
+        Data data = new Data(Arrays.asList(
+                Property.value("name", Value.of("foo")),
+                Property.value("count", Value.of(new BigDecimal("2.50"))),
+                Property.array("tags", Arrays.asList(Value.of("a"), Value.NULL)),
+                Property.object("nested", Option.none(), object),
+                Property.template("empty")
+        ));
+        Json.JObject json = new JsonObjectFromData().apply(data);
+        assertEquals("{\"name\":\"foo\",\"count\":2.50,\"tags\":[\"a\",null],\"nested\":{\"x\":1},\"empty\":null}", json.nospaces());
+
+        Data back = new JsonObjectToData().apply(json);
+        assertEquals(json, new JsonObjectFromData().apply(back));
+        assertEquals(Property.array("tags", Arrays.asList(Value.of("a"), Value.NULL)), back.propertyByName("tags").get());
+        assertEquals(JsonObjectToData.toDataArray(json), Json.jArray(back.stream().map(Property::asJson).collect(java.util.stream.Collectors.toList())));
+    }
+
+    @Test
+    public void bulkConversionGivesSameResultAsSingle() throws Exception {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            items.add(Item.create(URI.create("http://example.com/" + i), Arrays.asList(
+                    Property.value("id", Value.of(i)),
+                    Property.array("tags", Collections.singletonList(Value.of("t" + i)))
+            )));
+        }
+        JsonObjectFromData fromData = new JsonObjectFromData();
+        List<Json.JObject> objects = fromData.applyAll(items);
+        for (int i = 0; i < items.size(); i++) {
+            assertEquals(fromData.apply(items.get(i).getData()), objects.get(i));
+        }
+        List<Data> data = new JsonObjectToData().applyAll(objects);
+        for (int i = 0; i < items.size(); i++) {
+            assertEquals(items.get(i).getData().getDataAsMap(), data.get(i).getDataAsMap());
+        }
+    }
+}
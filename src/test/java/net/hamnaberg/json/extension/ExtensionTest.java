@@ -0,0 +1,157 @@
+/*
+ * Copyright 2012 Erlend Hamnaberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.hamnaberg.json.extension;
+
+import javaslang.control.Option;
+import net.hamnaberg.json.Collection;
+import net.hamnaberg.json.Error;
+import net.hamnaberg.json.Json;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class ExtensionTest {
+    @Test
+    public void cacheableExtensionsAreExtractedOnce() throws Exception {
+        Errors errors = new Errors.Builder().put("name", Collections.singletonList(Error.create("Missing", "400", "Name is required"))).build();
+        Collection collection = Collection.builder().build().apply(Option.of(errors), new Errors.Ext());
+
+        Option<Errors> first = collection.getExtension(new Errors.Ext());
+        assertSame(first, collection.getExtension(new Errors.Ext()));
+        assertEquals("Missing", first.get().getErrors("name").get(0).getTitle());
+
+        Counting counting = new Counting(false);
+        collection.getExtension(counting);
+        collection.getExtension(counting);
+        assertEquals(2, counting.count.get());
+
+        Counting cached = new Counting(true);
+        assertSame(collection.getExtension(cached), collection.getExtension(cached));
+        assertEquals(1, cached.count.get());
+
+        Extension<Tuple2<Option<Errors>, String>> combined = Extension.combine(new Errors.Ext(), cached);
+        assertSame(collection.getExtension(combined), collection.getExtension(Extension.combine(new Errors.Ext(), cached)));
+        assertNotSame(collection.getExtension(combined), collection.apply(Option.of(errors), new Errors.Ext()).getExtension(combined));
+    }
+
+    @Test
+    public void codecGivesSameResultAsApplyingEachExtension() throws Exception {
+        Errors errors = new Errors.Builder().put("name", Collections.singletonList(Error.create("Missing", "400", "Name is required"))).build();
+        Named first = new Named("first");
+        Named second = new Named("second");
+        Counting unknown = new Counting(false);
+        Collection collection = Collection.builder().build();
+        Collection chained = collection.apply(Option.of(errors), new Errors.Ext()).apply("a", first).apply("b", second);
+
+        ExtensionCodec codec = ExtensionCodec.of(new Errors.Ext(), first, second, unknown);
+        Collection applied = codec.apply(collection, codec.values()
+                .with(new Errors.Ext(), Option.of(errors))
+                .with(first, "a")
+                .with(second, "b"));
+        assertEquals(chained.asJson().nospaces(), applied.asJson().nospaces());
+        assertSame(collection, codec.apply(collection, codec.values()));
+
+        ExtensionCodec.Values values = codec.extract(applied);
+        assertEquals("a", values.get(first));
+        assertEquals("b", values.get(second));
+        assertEquals("Missing", values.get(new Errors.Ext()).get().getErrors("name").get(0).getTitle());
+        assertEquals(1, unknown.count.get());
+
+        Extension<Tuple3<Option<Errors>, String, String>> combined = Extension.combine3(new Errors.Ext(), first, second);
+        assertEquals(chained.asJson().nospaces(), collection.apply(Tuple3.of(Option.of(errors), "a", "b"), combined).asJson().nospaces());
+    }
+
+    @Test
+    public void codecHandsExtensionsOnlyTheirOwnFields() throws Exception {
+        Named first = new Named("first");
+        Named second = new Named("second");
+        ExtensionCodec codec = ExtensionCodec.of(first, second);
+        Json.JObject node = Json.jObject(
+                Json.tuple("first", Json.jString("a")),
+                Json.tuple("other", Json.jString("x")),
+                Json.tuple("second", Json.jString("b"))
+        );
+        ExtensionCodec.Values values = codec.extract(node);
+        assertEquals("a", values.get(first));
+        assertEquals("b", values.get(second));
+        assertEquals(Collections.singletonList("first"), first.seen);
+        assertEquals(Collections.singletonList("second"), second.seen);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void codecRejectsExtensionsSharingKeys() throws Exception {
+        ExtensionCodec.of(new Named("first"), new Named("first"));
+    }
+
+    private static final class Named extends Extension<String> {
+        private final String key;
+        private List<String> seen;
+
+        private Named(String key) {
+            this.key = key;
+        }
+
+        @Override
+        public String extract(Json.JObject node) {
+            seen = new ArrayList<>();
+            node.forEach((String name, Json.JValue value) -> seen.add(name));
+            return node.getAsString(key).getOrElse((String) null);
+        }
+
+        @Override
+        public Json.JObject apply(String value) {
+            return Json.jObject(key, Json.jString(value));
+        }
+
+        @Override
+        public java.util.Set<String> keys() {
+            return Collections.singleton(key);
+        }
+    }
+
+    private static final class Counting extends Extension<String> {
+        private final AtomicInteger count = new AtomicInteger();
+        private final boolean cacheable;
+
+        private Counting(boolean cacheable) {
+            this.cacheable = cacheable;
+        }
+
+        @Override
+        public String extract(Json.JObject node) {
+            count.incrementAndGet();
+            return null;
+        }
+
+        @Override
+        public Json.JObject apply(String value) {
+            return Json.jEmptyObject();
+        }
+
+        @Override
+        public boolean isCacheable() {
+            return cacheable;
+        }
+    }
+}
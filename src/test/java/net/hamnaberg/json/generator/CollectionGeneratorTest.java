@@ -23,12 +23,16 @@ import net.hamnaberg.json.*;
 import net.hamnaberg.json.parser.CollectionParser;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.net.URI;
 import java.util.*;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 
 public class CollectionGeneratorTest {
     private static final URI COLLECTION_URI = URI.create("http://example.com/collection");
@@ -68,6 +72,18 @@ public class CollectionGeneratorTest {
         assertEquals(createItems(), collection.getAsArrayOrEmpty("items"));
     }
 
+    @Test
+    public void sectionsAreDecodedOnce() throws Exception {
+        Collection collection = new CollectionParser().parse(Collection.builder(COLLECTION_URI)
+                .addItem(Item.create(COLLECTION_URI.resolve("item/1"), Collections.<Property>emptyList()))
+                .addLink(Link.create(COLLECTION_URI.resolve("next"), "next"))
+                .build().toString());
+        assertSame(collection.getItems(), collection.getItems());
+        assertSame(collection.getLinks(), collection.getLinks());
+        assertSame(collection.getQueries(), collection.getQueries());
+        assertSame(collection.getTemplate(), collection.getTemplate());
+    }
+
     @Test
     public void templateCollection() throws Exception {
         Json.JObject collection = new Collection.Builder(
@@ -102,6 +118,100 @@ public class CollectionGeneratorTest {
         assertEquals(collection.toString(), parsed.toString());
     }
 
+    @Test
+    public void collectionWriterWritesSameAsWriteTo() throws Exception {
+        Template template = Template.create(Arrays.asList(Property.value("one", Option.of("One"), Option.<Value>none())));
+        List<Link> links = Arrays.asList(Link.create(COLLECTION_URI.resolve("next"), "next"));
+        List<Query> queries = Arrays.asList(Query.create(COLLECTION_URI.resolve("search"), "search", Option.none(), Collections.<Property>emptyList()));
+        for (int count : new int[]{0, 1, 3}) {
+            List<Item> items = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                items.add(Item.create(COLLECTION_URI.resolve("item/" + i), Arrays.asList(Property.value("one", Option.of("One"), Value.of(i)))));
+            }
+            Collection expected = Collection.create(Option.of(COLLECTION_URI), links, items, queries, Option.of(template), Option.none());
+            StringWriter expectedWriter = new StringWriter();
+            expected.writeTo(expectedWriter);
+
+            Collection header = Collection.create(Option.of(COLLECTION_URI), links, Collections.<Item>emptyList(), queries, Option.of(template), Option.none());
+            StringWriter writer = new StringWriter();
+            try (CollectionWriter collectionWriter = new CollectionWriter(writer, header)) {
+                collectionWriter.writeAll(items.stream());
+            }
+            assertEquals(expectedWriter.toString(), writer.toString());
+
+            Collection withoutTemplate = Collection.create(Option.of(COLLECTION_URI), links, Collections.<Item>emptyList(), queries, Option.none(), Option.none());
+            writer = new StringWriter();
+            CollectionWriter collectionWriter = new CollectionWriter(writer, withoutTemplate);
+            collectionWriter.writeAll(items.iterator());
+            collectionWriter.finish(Option.of(template), Option.none());
+            assertEquals(expectedWriter.toString(), writer.toString());
+        }
+    }
+
+    @Test
+    public void collectionWriterKeepsOrderOfParsedHeader() throws Exception {
+        String links = "\"links\":[{\"href\":\"http://example.com/next\",\"rel\":\"next\"}]";
+        String queries = "\"queries\":[{\"href\":\"http://example.com/search\",\"rel\":\"search\"}]";
+        String version = "\"version\":\"1.0\"";
+        Item item = Item.create(COLLECTION_URI.resolve("item/1"), Arrays.asList(Property.value("one", Value.of(1))));
+        String items = "\"items\":[" + item.asJson().nospaces() + "]";
+        CollectionParser parser = new CollectionParser();
+
+        Collection withoutItems = parser.parse("{\"collection\":{" + links + "," + queries + "," + version + "}}");
+        assertEquals("{\"collection\":{" + links + "," + items + "," + queries + "," + version + "}}", write(withoutItems, item));
+
+        Collection withItems = parser.parse("{\"collection\":{" + queries + "," + version + "," + links + ",\"items\":[]}}");
+        assertEquals("{\"collection\":{" + queries + "," + version + "," + links + "," + items + "}}", write(withItems, item));
+    }
+
+    private static String write(Collection header, Item... items) throws Exception {
+        StringWriter writer = new StringWriter();
+        try (CollectionWriter collectionWriter = new CollectionWriter(writer, header)) {
+            collectionWriter.writeAll(Arrays.asList(items).iterator());
+        }
+        return writer.toString();
+    }
+
+    @Test
+    public void utf8WriterWritesSameAsNospaces() throws Exception {
+        StringBuilder all = new StringBuilder();
+        for (char c = 0; c < Character.MAX_VALUE; c++) {
+            all.append(c);
+        }
+        all.append("\uD83D\uDE00 done");
+        Json.JValue value = Json.jObject(
+                Json.tuple("string", Json.jString(all.toString())),
+                Json.tuple("numbers", Json.jArray(Json.jNumber(1), Json.jNumber(new java.math.BigDecimal("1.50")), Json.jNumber(1e-10))),
+                Json.tuple("boolean", Json.jBoolean(true)),
+                Json.tuple("null", Json.jNull()),
+                Json.tuple("empty", Json.jObject(Collections.<String, Json.JValue>emptyMap()))
+        );
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        Utf8JsonWriter.write(value, stream);
+        assertArrayEquals(value.nospaces().getBytes(StandardCharsets.UTF_8), stream.toByteArray());
+    }
+
+    @Test
+    public void writeToStreamWritesSameAsWriter() throws Exception {
+        List<Item> items = new ArrayList<>();
+        items.add(Item.create(COLLECTION_URI.resolve("item/1"), Arrays.asList(Property.value("one", Option.of("Ønske"), Value.of(1)))));
+        Collection collection = Collection.builder(COLLECTION_URI).addItems(items).build();
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        collection.writeTo(stream);
+        assertEquals(collection.toString(), stream.toString("UTF-8"));
+
+        stream = new ByteArrayOutputStream();
+        try (CollectionWriter writer = new CollectionWriter(stream, Collection.builder(COLLECTION_URI).build())) {
+            writer.writeAll(items.iterator());
+        }
+        assertEquals(collection.toString(), stream.toString("UTF-8"));
+
+        Template template = Template.create(Arrays.asList(Property.value("one", Option.of("One"), Option.<Value>none())));
+        stream = new ByteArrayOutputStream();
+        template.writeTo(stream);
+        assertEquals(template.toString(), stream.toString("UTF-8"));
+    }
+
     private Json.JObject createTemplate() {
         return Json.jObject("data", Json.jArray(
                 Json.jObject(
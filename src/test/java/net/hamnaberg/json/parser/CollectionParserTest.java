@@ -17,10 +17,26 @@
 package net.hamnaberg.json.parser;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.StringReader;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import javaslang.control.Option;
 import net.hamnaberg.json.Collection;
@@ -130,4 +146,222 @@ public class CollectionParserTest {
         assertTrue(object.containsKey("foo"));
         assertEquals(Value.of("bar"), object.get("foo"));
     }
+
+    @Test
+    public void streamItems() throws IOException {
+        AtomicReference<Collection> header = new AtomicReference<>();
+        List<Item> items;
+        try (Stream<Item> stream = parser.streamItems(getClass().getResourceAsStream("/item.json"), header::set)) {
+            items = stream.collect(Collectors.toList());
+        }
+        Collection expected = parser.parse(new InputStreamReader(getClass().getResourceAsStream("/item.json")));
+        assertEquals(expected.getItems(), items);
+        assertNotNull("Header was not reported", header.get());
+        assertEquals(expected.getHref(), header.get().getHref());
+        assertEquals(expected.getLinks(), header.get().getLinks());
+        assertEquals(0, header.get().getItems().size());
+    }
+
+    @Test
+    public void streamItemsReportsPropertiesAfterItems() throws IOException {
+        String json = "{\"collection\": {\"href\": \"http://example.org/\", \"items\": [{\"href\": \"http://example.org/1\"}, {\"href\": \"http://example.org/2\"}], " +
+                "\"template\": {\"data\": [{\"name\": \"foo\"}]}}}";
+        AtomicReference<Collection> header = new AtomicReference<>();
+        try (Stream<Item> stream = parser.streamItems(new StringReader(json), header::set)) {
+            assertEquals(2, stream.count());
+        }
+        assertTrue(header.get().hasTemplate());
+    }
+
+    @Test(expected = ParseException.class)
+    public void streamItemsFailsWithoutCollection() throws IOException {
+        parser.streamItems(new StringReader("{\"template\": {}}"), c -> {});
+    }
+
+    @Test
+    public void streamItemsClosesInputWhenOpeningFails() throws IOException {
+        AtomicBoolean closed = new AtomicBoolean();
+        byte[] prefix = "{\"meta\": [1, 2,".getBytes(StandardCharsets.UTF_8);
+        InputStream failing = new InputStream() {
+            private boolean sent;
+
+            @Override
+            public int read() {
+                throw new IllegalStateException("Broken");
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (sent) {
+                    throw new IllegalStateException("Broken");
+                }
+                sent = true;
+                System.arraycopy(prefix, 0, b, off, prefix.length);
+                return prefix.length;
+            }
+
+            @Override
+            public void close() {
+                closed.set(true);
+            }
+        };
+        try {
+            parser.streamItems(failing, c -> {});
+            Assert.fail("Expected opening to fail");
+        } catch (IllegalStateException expected) {
+        }
+        assertTrue(closed.get());
+    }
+
+    @Test
+    public void parseBytesGivesSameResultAsReader() throws Exception {
+        Collection expected = parser.parse(new InputStreamReader(getClass().getResourceAsStream("/value-extension.json"), StandardCharsets.UTF_8));
+        byte[] bytes = Files.readAllBytes(Paths.get(getClass().getResource("/value-extension.json").toURI()));
+        byte[] padded = new byte[bytes.length + 4];
+        System.arraycopy(bytes, 0, padded, 2, bytes.length);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+
+        assertEquals(expected, parser.parse(bytes));
+        assertEquals(expected, parser.parse(padded, 2, bytes.length));
+        assertEquals(expected, parser.parse(ByteBuffer.wrap(bytes)));
+        assertEquals(expected, parser.parse(direct));
+        assertEquals("Buffer position was modified", 0, direct.position());
+        assertEquals(expected, parser.parse(getClass().getResourceAsStream("/value-extension.json")));
+    }
+
+    @Test
+    public void parseMappedFile() throws Exception {
+        Collection expected = parser.parse(new InputStreamReader(getClass().getResourceAsStream("/item.json"), StandardCharsets.UTF_8));
+        Path path = Paths.get(getClass().getResource("/item.json").toURI());
+        assertEquals(expected, parser.parse(path));
+        try (Stream<Item> items = parser.streamItems(path, c -> assertEquals(expected.getLinks(), c.getLinks()))) {
+            assertEquals(expected.getItems(), items.collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void parseItemsInParallel() throws Exception {
+        Collection.Builder builder = Collection.builder(URI.create("http://example.org/friends/"));
+        for (int i = 0; i < 500; i++) {
+            builder.addItem(Item.create(URI.create("http://example.org/friends/" + i), Arrays.asList(
+                    Property.value("name", Value.of("Friend \"" + i + "\" \u00e6\u00f8\u00e5")),
+                    Property.value("age", Value.of(i)),
+                    Property.array("tags", Arrays.asList(Value.of("a"), Value.of(true), Value.NULL))
+            )));
+        }
+        Collection expected = builder.withTemplate(Template.create(Collections.singletonList(Property.template("name")))).build();
+        byte[] bytes = expected.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] padded = new byte[bytes.length + 10];
+        System.arraycopy(bytes, 0, padded, 5, bytes.length);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        ByteBuffer[] chunks = new ByteBuffer[3];
+        int chunkSize = bytes.length / 3 + 1;
+        for (int i = 0; i < chunks.length; i++) {
+            ByteBuffer chunk = direct.duplicate();
+            chunk.position(i * chunkSize).limit(Math.min(bytes.length, (i + 1) * chunkSize));
+            chunks[i] = chunk;
+        }
+
+        CollectionParser parallel = new CollectionParser(ParseOptions.DEFAULT.withParallelism(new ForkJoinPool(4)));
+        assertEquals(expected, parallel.parse(bytes));
+        assertEquals(expected, parallel.parse(padded, 5, bytes.length));
+        assertEquals(expected, parallel.parse(direct));
+        assertEquals(expected, parallel.parse(ByteSource.chunked(chunks)));
+    }
+
+    @Test
+    public void validationModes() throws Exception {
+        String json = "{\"collection\":{\"href\":\"http://example.com\",\"links\":[{\"rel\":\"self\"}],\"items\":[{\"href\":\"http://example.com/1\"}]}}";
+        try {
+            parser.parse(json);
+            Assert.fail("Expected invalid link to fail eager validation");
+        } catch (IllegalArgumentException expected) {
+        }
+
+        Collection unvalidated = new CollectionParser(ParseOptions.DEFAULT.withValidation(ParseOptions.Validation.NONE)).parse(json);
+        assertEquals(1, unvalidated.getLinks().size());
+
+        Collection lazy = new CollectionParser(ParseOptions.DEFAULT.withValidation(ParseOptions.Validation.LAZY)).parse(json);
+        assertEquals(1, lazy.getItems().size());
+        try {
+            lazy.getLinks();
+            Assert.fail("Expected invalid link to fail on access");
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void parseNumbers() throws Exception {
+        String json = "{\"collection\":{\"href\":\"http://example.com\",\"items\":[{\"href\":\"http://example.com/1\",\"data\":["
+                + "{\"name\":\"small\",\"value\":-5},"
+                + "{\"name\":\"long\",\"value\":9007199254740993},"
+                + "{\"name\":\"big\",\"value\":123456789012345678901234567890},"
+                + "{\"name\":\"decimal\",\"value\":1.50}"
+                + "]}]}}";
+        Item item = parser.parse(json).getFirstItem().get();
+        assertEquals(Value.of(-5), item.propertyByName("small").get().getValue().get());
+        assertEquals(9007199254740993L, item.getLong("long", 0));
+        assertEquals(Value.of(new java.math.BigDecimal("123456789012345678901234567890")), item.propertyByName("big").get().getValue().get());
+        assertEquals(Value.of(new java.math.BigDecimal("1.50")), item.propertyByName("decimal").get().getValue().get());
+        assertEquals(json, parser.parse(json).toString());
+    }
+
+    @Test
+    public void parseOnlyRequestedSections() throws Exception {
+        ParseOptions options = ParseOptions.DEFAULT.withSections(ParseOptions.Section.LINKS, ParseOptions.Section.QUERIES);
+        Collection full = parser.parse(new InputStreamReader(getClass().getResourceAsStream("/item.json")));
+        Collection projected = new CollectionParser(options).parse(getClass().getResourceAsStream("/item.json"));
+        assertEquals(full.getHref(), projected.getHref());
+        assertEquals(full.getLinks(), projected.getLinks());
+        assertEquals(full.getQueries(), projected.getQueries());
+        assertTrue(projected.getItems().isEmpty());
+        assertFalse(projected.getTemplate().isDefined());
+    }
+
+    @Test
+    public void parseOnlyRequestedItemProperties() throws Exception {
+        ParseOptions options = ParseOptions.DEFAULT.withItemProperties("full-name");
+        Collection full = parser.parse(new InputStreamReader(getClass().getResourceAsStream("/item.json")));
+        Collection projected = new CollectionParser(options).parse(getClass().getResourceAsStream("/item.json"));
+        Item item = projected.getFirstItem().get();
+        assertEquals(1, item.getData().stream().count());
+        assertEquals(full.getFirstItem().get().propertyByName("full-name"), item.propertyByName("full-name"));
+        assertEquals(full.getFirstItem().get().getLinks(), item.getLinks());
+    }
+
+    @Test
+    public void parseNonBlockingInChunks() throws Exception {
+        byte[] bytes = Files.readAllBytes(Paths.get(getClass().getResource("/item.json").toURI()));
+        Collection expected = parser.parse(new InputStreamReader(getClass().getResourceAsStream("/item.json")));
+
+        NonBlockingCollectionParser nonBlocking = parser.nonBlocking();
+        ByteBuffer chunk = ByteBuffer.allocateDirect(7);
+        for (int i = 0; i < bytes.length; i += 7) {
+            chunk.clear();
+            chunk.put(bytes, i, Math.min(7, bytes.length - i));
+            chunk.flip();
+            nonBlocking.feed(chunk);
+        }
+        assertEquals(expected, nonBlocking.complete());
+
+        List<Item> items = new ArrayList<>();
+        NonBlockingCollectionParser itemParser = parser.nonBlocking(items::add);
+        for (int i = 0; i < bytes.length; i += 5) {
+            itemParser.feed(bytes, i, Math.min(5, bytes.length - i));
+        }
+        Collection header = itemParser.complete();
+        assertEquals(expected.getItems(), items);
+        assertTrue(header.getItems().isEmpty());
+        assertEquals(expected.getLinks(), header.getLinks());
+    }
+
+    @Test(expected = ParseException.class)
+    public void parseNonBlockingFailsOnIncompleteInput() throws Exception {
+        NonBlockingCollectionParser nonBlocking = parser.nonBlocking();
+        byte[] bytes = "{\"collection\":{\"href\":\"http://example.com\"".getBytes(StandardCharsets.UTF_8);
+        nonBlocking.feed(bytes, 0, bytes.length);
+        nonBlocking.complete();
+    }
 }
@@ -0,0 +1,219 @@
+/*
+ * Copyright 2012 Erlend Hamnaberg
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package net.hamnaberg.json.reactive;
+
+import javaslang.control.Option;
+import net.hamnaberg.json.Collection;
+import net.hamnaberg.json.Item;
+import net.hamnaberg.json.Link;
+import net.hamnaberg.json.Property;
+import net.hamnaberg.json.Query;
+import net.hamnaberg.json.Value;
+import net.hamnaberg.json.parser.CollectionParser;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReactiveCollectionTest {
+    private static final URI COLLECTION_URI = URI.create("http://example.com/collection");
+
+    @Test
+    public void parsesItemsFromChunks() throws Exception {
+        Collection collection = collection(25);
+        byte[] bytes = collection.toString().getBytes(StandardCharsets.UTF_8);
+        List<ByteBuffer> chunks = new ArrayList<>();
+        for (int i = 0; i < bytes.length; i += 16) {
+            chunks.add(ByteBuffer.wrap(bytes, i, Math.min(16, bytes.length - i)));
+        }
+
+        AtomicReference<Collection> header = new AtomicReference<>();
+        ItemProcessor processor = new ItemProcessor(new CollectionParser(), header::set);
+        new ListPublisher<>(chunks).subscribe(processor);
+        Collecting<Item> subscriber = new Collecting<>();
+        processor.subscribe(subscriber);
+        subscriber.requestAll();
+
+        assertTrue(subscriber.completed);
+        assertEquals(collection.getItems(), subscriber.values);
+        assertEquals(collection.getLinks(), header.get().getLinks());
+        assertTrue(header.get().getItems().isEmpty());
+    }
+
+    @Test
+    public void invalidRequestIsSignalledBeforeBufferedItems() throws Exception {
+        Collection collection = collection(5);
+        ListPublisher<ByteBuffer> chunks = new ListPublisher<>(Collections.singletonList(ByteBuffer.wrap(collection.toString().getBytes(StandardCharsets.UTF_8))));
+        ItemProcessor processor = new ItemProcessor(new CollectionParser(), header -> {});
+        chunks.subscribe(processor);
+        Collecting<Item> subscriber = new Collecting<>();
+        processor.subscribe(subscriber);
+
+        subscriber.subscription.request(1);
+        assertEquals(1, subscriber.values.size());
+        subscriber.subscription.request(0);
+        assertTrue(subscriber.error instanceof IllegalArgumentException);
+        assertTrue(chunks.cancelled);
+        subscriber.subscription.request(10);
+        assertEquals(1, subscriber.values.size());
+        assertFalse(subscriber.completed);
+    }
+
+    @Test
+    public void writesSameBytesAsWriteTo() throws Exception {
+        for (int count : new int[]{0, 1, 10}) {
+            Collection collection = collection(count);
+            Collecting<ByteBuffer> subscriber = new Collecting<>();
+            new CollectionPublisher(collection(0), new ListPublisher<>(collection.getItems())).subscribe(subscriber);
+            subscriber.requestAll();
+
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            collection.writeTo(expected);
+            ByteArrayOutputStream actual = new ByteArrayOutputStream();
+            for (ByteBuffer chunk : subscriber.values) {
+                actual.write(chunk.array(), chunk.arrayOffset() + chunk.position(), chunk.remaining());
+            }
+            assertTrue(subscriber.completed);
+            assertEquals(expected.toString("UTF-8"), actual.toString("UTF-8"));
+        }
+    }
+
+    @Test
+    public void writerOnlyRequestsItemsForOutstandingDemand() throws Exception {
+        Collection collection = collection(10);
+        ListPublisher<Item> items = new ListPublisher<>(collection.getItems());
+        Collecting<ByteBuffer> subscriber = new Collecting<>();
+        new CollectionPublisher(collection(0), items).subscribe(subscriber);
+
+        subscriber.subscription.request(2);
+        assertEquals(2, subscriber.values.size());
+        assertEquals(2, items.requested.get());
+        subscriber.subscription.request(1);
+        assertEquals(3, subscriber.values.size());
+        assertEquals(3, items.requested.get());
+    }
+
+    private static Collection collection(int count) {
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            items.add(Item.create(COLLECTION_URI.resolve("item/" + i), Arrays.asList(
+                    Property.value("name", Option.of("Name"), Value.of("Item \"" + i + "\" æ")),
+                    Property.value("number", Option.none(), Value.of(i))
+            )));
+        }
+        return Collection.create(
+                Option.of(COLLECTION_URI),
+                Collections.singletonList(Link.create(COLLECTION_URI.resolve("next"), "next")),
+                items,
+                Collections.singletonList(Query.create(COLLECTION_URI.resolve("search"), "search", Option.none(), Collections.singletonList(Property.value("q", Option.none(), Option.none())))),
+                Option.none(),
+                Option.none()
+        );
+    }
+
+    private static final class ListPublisher<A> implements Publisher<A> {
+        private final List<A> values;
+        private final AtomicLong requested = new AtomicLong();
+        private volatile boolean cancelled;
+
+        private ListPublisher(List<A> values) {
+            this.values = values;
+        }
+
+        @Override
+        public void subscribe(Subscriber<? super A> subscriber) {
+            subscriber.onSubscribe(new Subscription() {
+                private int index;
+                private boolean emitting;
+
+                @Override
+                public void request(long n) {
+                    requested.addAndGet(n);
+                    if (emitting) {
+                        return;
+                    }
+                    emitting = true;
+                    while (index < values.size() && requested.get() > index) {
+                        subscriber.onNext(values.get(index++));
+                    }
+                    if (index == values.size()) {
+                        index++;
+                        subscriber.onComplete();
+                    }
+                    emitting = false;
+                }
+
+                @Override
+                public void cancel() {
+                    cancelled = true;
+                    index = values.size() + 1;
+                }
+            });
+        }
+    }
+
+    private static final class Collecting<A> implements Subscriber<A> {
+        private final List<A> values = new ArrayList<>();
+        private Subscription subscription;
+        private boolean completed;
+        private Throwable error;
+
+        void requestAll() {
+            while (!completed) {
+                if (error != null) {
+                    throw new AssertionError(error);
+                }
+                subscription.request(1);
+            }
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            this.subscription = subscription;
+        }
+
+        @Override
+        public void onNext(A value) {
+            values.add(value);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+        }
+    }
+}